@@ -0,0 +1,89 @@
+package com.example.sentimentapi.rntn;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.sentiment.CollapseUnaryTransformer;
+import edu.stanford.nlp.sentiment.SentimentCostAndGradient;
+import edu.stanford.nlp.sentiment.SentimentModel;
+import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RNTN forward pass per sentence: CoreNLP's EJML path versus the flat evaluator
+ * with scalar and Vector API kernels, over random binarized trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class RntnKernelBenchmark {
+
+    @Param({"5", "10", "20", "40", "80"})
+    public int sentenceLength;
+
+    private SentimentModel model;
+    private Tree tree;
+    private RntnEvaluator scalar;
+    private RntnEvaluator vector;
+    private final CollapseUnaryTransformer transformer = new CollapseUnaryTransformer();
+    private final double[] probabilities = new double[5];
+
+    @Setup
+    public void setUp() {
+        model = SentimentModel.loadSerialized("edu/stanford/nlp/models/sentiment/sentiment.ser.gz");
+        RntnWeights weights = RntnWeights.from(model);
+        scalar = new RntnEvaluator(weights, RntnKernels.scalar());
+        vector = new RntnEvaluator(weights, RntnKernels.select(true));
+
+        List<String> vocabulary = new ArrayList<>(model.wordVectors.keySet());
+        Random random = new Random(42);
+        TreeFactory factory = new LabeledScoredTreeFactory(CoreLabel.factory());
+        tree = randomTree(factory, vocabulary, random, sentenceLength);
+    }
+
+    @Benchmark
+    public Object ejml() {
+        Tree collapsed = transformer.transformTree(tree);
+        new SentimentCostAndGradient(model, null).forwardPropagateTree(collapsed);
+        return collapsed;
+    }
+
+    @Benchmark
+    public int flatScalar() {
+        return scalar.evaluate(tree, probabilities);
+    }
+
+    @Benchmark
+    public int flatVector() {
+        return vector.evaluate(tree, probabilities);
+    }
+
+    private static Tree randomTree(TreeFactory factory, List<String> vocabulary, Random random, int leaves) {
+        if (leaves == 1) {
+            Tree word = factory.newLeaf(vocabulary.get(random.nextInt(vocabulary.size())));
+            return factory.newTreeNode("X", List.of(word));
+        }
+        int left = 1 + random.nextInt(leaves - 1);
+        return factory.newTreeNode("X", List.of(
+                randomTree(factory, vocabulary, random, left),
+                randomTree(factory, vocabulary, random, leaves - left)));
+    }
+}
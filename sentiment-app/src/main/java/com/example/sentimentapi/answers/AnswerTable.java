@@ -0,0 +1,91 @@
+package com.example.sentimentapi.answers;
+
+import com.example.sentimentapi.service.ModelFingerprint;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Precomputed results for the most frequent inputs, checked before any NLP work.
+ *
+ * A table built for a different model configuration is ignored with a warning, since
+ * its answers would disagree with the pipeline.
+ */
+@Component
+public class AnswerTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerTable.class);
+
+    private final AnswerTableProperties properties;
+    private final ModelFingerprint modelFingerprint;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile AnswerTableFile table;
+
+    public AnswerTable(AnswerTableProperties properties, ModelFingerprint modelFingerprint,
+                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.modelFingerprint = modelFingerprint;
+        this.hits = Counter.builder("sentiment.answers.lookups")
+                .description("Lookups in the precomputed answer table")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sentiment.answers.lookups")
+                .description("Lookups in the precomputed answer table")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.answers.size", this, t -> t.table != null ? t.table.size() : 0)
+                .description("Texts in the precomputed answer table")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.file() == null) {
+            return;
+        }
+        if (!Files.exists(properties.file())) {
+            logger.info("No answer table at {}; every text is analyzed", properties.file());
+            return;
+        }
+        AnswerTableFile loaded;
+        try {
+            loaded = AnswerTableFile.read(properties.file());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load answer table " + properties.file(), e);
+        }
+        if (!loaded.modelFingerprint().equals(modelFingerprint.value())) {
+            logger.warn("Ignoring answer table {}: built for model {}, running {}",
+                    properties.file(), loaded.modelFingerprint(), modelFingerprint.value());
+            return;
+        }
+        this.table = loaded;
+        logger.info("Loaded answer table {} with {} texts", properties.file(), loaded.size());
+    }
+
+    /**
+     * Looks up a precomputed result.
+     *
+     * @param text Request text
+     * @return The result, or null if the text must be analyzed
+     */
+    public SentimentResult lookup(String text) {
+        AnswerTableFile current = table;
+        if (current == null || text == null || text.isBlank()) {
+            return null;
+        }
+        SentimentResult result = current.lookup(text);
+        (result != null ? hits : misses).increment();
+        return result;
+    }
+}
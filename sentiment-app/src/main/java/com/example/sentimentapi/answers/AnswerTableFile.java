@@ -0,0 +1,160 @@
+package com.example.sentimentapi.answers;
+
+import com.example.sentimentapi.service.ResultCache;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table of precomputed results for known texts.
+ *
+ * Layout: a header with the {@link com.example.sentimentapi.service.ModelFingerprint}
+ * the results were computed with, a {@link MinimalPerfectHash} over the 64-bit hashes
+ * of the normalized texts, then one fixed-size entry per text at its hash index:
+ * the text hash (to reject texts outside the table), label, confidence and the five
+ * class scores. The file is memory-mapped and read in place.
+ */
+public final class AnswerTableFile {
+
+    /** File name extension of answer tables. */
+    public static final String EXTENSION = ".answers";
+
+    private static final int MAGIC = 0x414E5357;
+    private static final int VERSION = 1;
+    private static final List<String> LABELS = List.of("negative", "neutral", "positive");
+    /** Hash, label, confidence and five scores. */
+    private static final int ENTRY = 8 * Long.BYTES;
+
+    private final String modelFingerprint;
+    private final int size;
+    private final MinimalPerfectHash hash;
+    private final ByteBuffer entries;
+
+    private AnswerTableFile(String modelFingerprint, int size, MinimalPerfectHash hash, ByteBuffer entries) {
+        this.modelFingerprint = modelFingerprint;
+        this.size = size;
+        this.hash = hash;
+        this.entries = entries;
+    }
+
+    public String modelFingerprint() {
+        return modelFingerprint;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up a text.
+     *
+     * @return The precomputed result, or null if the text is not in the table
+     */
+    public SentimentResult lookup(String text) {
+        long key = textHash(ResultCache.normalize(text));
+        int index = hash.index(key);
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        int offset = index * ENTRY;
+        if (entries.getLong(offset) != key) {
+            return null;
+        }
+        String label = LABELS.get((int) entries.getLong(offset + Long.BYTES));
+        double confidence = entries.getDouble(offset + 2 * Long.BYTES);
+        double[] scores = new double[5];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = entries.getDouble(offset + (3 + i) * Long.BYTES);
+        }
+        return new SentimentResult(label, confidence, scores, false);
+    }
+
+    /**
+     * Writes a table.
+     *
+     * @param results Results by text; texts that normalize to the same key keep the first result
+     * @param modelFingerprint Fingerprint of the configuration that computed the results
+     * @param path Destination file
+     * @return Number of entries written
+     * @throws IllegalArgumentException if a result's label cannot be stored (errors are never precomputed)
+     */
+    public static int write(Map<String, SentimentResult> results, String modelFingerprint, Path path)
+            throws IOException {
+        Map<Long, SentimentResult> byKey = new LinkedHashMap<>();
+        results.forEach((text, result) -> byKey.putIfAbsent(textHash(ResultCache.normalize(text)), result));
+        long[] keys = byKey.keySet().stream().mapToLong(Long::longValue).toArray();
+        MinimalPerfectHash hash = MinimalPerfectHash.build(keys);
+
+        byte[] fingerprint = modelFingerprint.getBytes(StandardCharsets.UTF_8);
+        int headerSize = 4 * Integer.BYTES + fingerprint.length;
+        int entriesOffset = align(headerSize + hash.sizeInBytes());
+        ByteBuffer out = ByteBuffer.allocate(entriesOffset + keys.length * ENTRY);
+        out.putInt(MAGIC).putInt(VERSION).putInt(fingerprint.length).put(fingerprint).putInt(keys.length);
+        hash.write(out);
+        for (long key : keys) {
+            SentimentResult result = byKey.get(key);
+            int label = LABELS.indexOf(result.sentiment());
+            if (label < 0) {
+                throw new IllegalArgumentException("Cannot store result with label " + result.sentiment());
+            }
+            int offset = entriesOffset + hash.index(key) * ENTRY;
+            out.putLong(offset, key);
+            out.putLong(offset + Long.BYTES, label);
+            out.putDouble(offset + 2 * Long.BYTES, result.confidence());
+            for (int i = 0; i < 5; i++) {
+                out.putDouble(offset + (3 + i) * Long.BYTES, result.scores()[i]);
+            }
+        }
+        Files.write(path, out.array());
+        return keys.length;
+    }
+
+    /**
+     * Maps a table into memory.
+     */
+    public static AnswerTableFile read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an answer table: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported answer table version " + version + ": " + path);
+        }
+        byte[] fingerprint = new byte[buffer.getInt()];
+        buffer.get(fingerprint);
+        int size = buffer.getInt();
+        MinimalPerfectHash hash = MinimalPerfectHash.read(buffer);
+        int entriesOffset = align(buffer.position());
+        return new AnswerTableFile(new String(fingerprint, StandardCharsets.UTF_8), size, hash,
+                buffer.slice(entriesOffset, size * ENTRY));
+    }
+
+    /**
+     * 64-bit FNV-1a over the normalized text's chars.
+     */
+    private static long textHash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+}
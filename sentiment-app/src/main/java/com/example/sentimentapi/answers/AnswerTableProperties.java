@@ -0,0 +1,14 @@
+package com.example.sentimentapi.answers;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for the precomputed answer table.
+ *
+ * @param file Answer table built by AnswerTableBuilder; unset or missing disables the table
+ */
+@ConfigurationProperties(prefix = "sentiment.answers")
+public record AnswerTableProperties(Path file) {
+}
@@ -0,0 +1,155 @@
+package com.example.sentimentapi.answers;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimal perfect hash over 64-bit keys in the style of BBHash.
+ *
+ * Each level is a bit array of about twice as many bits as keys left. A key whose
+ * position on a level is not shared with any other key sets that bit; colliding keys
+ * move on to the next, smaller level. The index of a key is the number of set bits
+ * before its bit across all levels, so n keys map onto 0..n-1 using about 3 bits per
+ * key plus 32-bit rank samples per word. Keys outside the set map to an arbitrary
+ * index or to -1, so callers must verify what they find there.
+ */
+final class MinimalPerfectHash {
+
+    private static final double GAMMA = 2.0;
+    private static final int MAX_LEVELS = 64;
+
+    private final LongBuffer[] levels;
+    private final IntBuffer[] ranks;
+
+    private MinimalPerfectHash(LongBuffer[] levels, IntBuffer[] ranks) {
+        this.levels = levels;
+        this.ranks = ranks;
+    }
+
+    /**
+     * Builds a hash over distinct keys.
+     *
+     * @throws IllegalArgumentException if the keys contain duplicates
+     */
+    static MinimalPerfectHash build(long[] keys) {
+        List<long[]> bitLevels = new ArrayList<>();
+        long[] remaining = keys;
+        while (remaining.length > 0) {
+            int level = bitLevels.size();
+            if (level == MAX_LEVELS) {
+                throw new IllegalArgumentException("Keys are not distinct; " + remaining.length + " keys left");
+            }
+            int words = Math.max(1, (int) Math.ceil(GAMMA * remaining.length / 64));
+            long[] seen = new long[words];
+            long[] collided = new long[words];
+            for (long key : remaining) {
+                long bit = position(key, level, words);
+                if ((seen[(int) (bit >>> 6)] & 1L << bit) != 0) {
+                    collided[(int) (bit >>> 6)] |= 1L << bit;
+                } else {
+                    seen[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+            long[] next = new long[remaining.length];
+            int n = 0;
+            for (long key : remaining) {
+                long bit = position(key, level, words);
+                if ((collided[(int) (bit >>> 6)] & 1L << bit) != 0) {
+                    next[n++] = key;
+                }
+            }
+            for (int w = 0; w < words; w++) {
+                seen[w] &= ~collided[w];
+            }
+            bitLevels.add(seen);
+            remaining = Arrays.copyOf(next, n);
+        }
+
+        LongBuffer[] levels = new LongBuffer[bitLevels.size()];
+        IntBuffer[] ranks = new IntBuffer[bitLevels.size()];
+        int rank = 0;
+        for (int l = 0; l < levels.length; l++) {
+            long[] bits = bitLevels.get(l);
+            int[] levelRanks = new int[bits.length];
+            for (int w = 0; w < bits.length; w++) {
+                levelRanks[w] = rank;
+                rank += Long.bitCount(bits[w]);
+            }
+            levels[l] = LongBuffer.wrap(bits);
+            ranks[l] = IntBuffer.wrap(levelRanks);
+        }
+        return new MinimalPerfectHash(levels, ranks);
+    }
+
+    /**
+     * Index of a key in 0..n-1, or -1 if it fell through every level (so is not in the set).
+     */
+    int index(long key) {
+        for (int level = 0; level < levels.length; level++) {
+            LongBuffer bits = levels[level];
+            long bit = position(key, level, bits.capacity());
+            long word = bits.get((int) (bit >>> 6));
+            if ((word & 1L << bit) != 0) {
+                return ranks[level].get((int) (bit >>> 6)) + Long.bitCount(word & ((1L << bit) - 1));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Serialized size: level count, then per level its word count, words and ranks.
+     */
+    int sizeInBytes() {
+        int size = Integer.BYTES;
+        for (LongBuffer bits : levels) {
+            size += Integer.BYTES + bits.capacity() * (Long.BYTES + Integer.BYTES);
+        }
+        return size;
+    }
+
+    void write(ByteBuffer out) {
+        out.putInt(levels.length);
+        for (int l = 0; l < levels.length; l++) {
+            out.putInt(levels[l].capacity());
+            for (int w = 0; w < levels[l].capacity(); w++) {
+                out.putLong(levels[l].get(w));
+            }
+            for (int w = 0; w < ranks[l].capacity(); w++) {
+                out.putInt(ranks[l].get(w));
+            }
+        }
+    }
+
+    /**
+     * Reads a hash written by {@link #write}, viewing the bit arrays in place.
+     */
+    static MinimalPerfectHash read(ByteBuffer in) {
+        int count = in.getInt();
+        LongBuffer[] levels = new LongBuffer[count];
+        IntBuffer[] ranks = new IntBuffer[count];
+        for (int l = 0; l < count; l++) {
+            int words = in.getInt();
+            levels[l] = in.slice(in.position(), words * Long.BYTES).asLongBuffer();
+            in.position(in.position() + words * Long.BYTES);
+            ranks[l] = in.slice(in.position(), words * Integer.BYTES).asIntBuffer();
+            in.position(in.position() + words * Integer.BYTES);
+        }
+        return new MinimalPerfectHash(levels, ranks);
+    }
+
+    /**
+     * Bit position of a key on a level with the given number of 64-bit words.
+     */
+    private static long position(long key, int level, int words) {
+        long h = key ^ (level + 1) * 0x9E3779B97F4A7C15L;
+        // splitmix64 finalizer, then map onto [0, bits) without division
+        h = (h ^ h >>> 30) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ h >>> 27) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return Math.unsignedMultiplyHigh(h, words * 64L);
+    }
+}
@@ -4,11 +4,27 @@ import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
 
+/**
+ * Reports OUT_OF_SERVICE until the start-up warm-up has finished, which keeps new
+ * pods out of the readiness group while the JIT is still cold.
+ */
 @Component
 public class SentimentHealthIndicator implements HealthIndicator {
 
+    private final WarmupRunner warmupRunner;
+
+    public SentimentHealthIndicator(WarmupRunner warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
     @Override
     public Health health() {
-        return Health.up().withDetail("sentiment", "ok").build();
+        Health.Builder builder = warmupRunner.isComplete()
+                ? Health.up().withDetail("sentiment", "ok")
+                : Health.outOfService().withDetail("sentiment", "warming up");
+        return builder
+                .withDetail("warmupIterations", warmupRunner.iterations())
+                .withDetail("warmupMillis", warmupRunner.durationMillis())
+                .build();
     }
 }
@@ -0,0 +1,24 @@
+package com.example.sentimentapi.health;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the start-up warm-up that gates readiness.
+ *
+ * @param enabled Replay the warm-up corpus before reporting ready
+ * @param corpus Resource with one warm-up document per line
+ * @param latencyTarget p95 latency the last window of documents must meet
+ * @param window Number of most recent documents the p95 is computed over
+ * @param maxDuration Upper bound on the warm-up; the pod becomes ready afterwards even if the target was missed
+ */
+@ConfigurationProperties(prefix = "sentiment.warmup")
+public record WarmupProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("classpath:warmup-corpus.txt") String corpus,
+        @DefaultValue("200ms") Duration latencyTarget,
+        @DefaultValue("20") int window,
+        @DefaultValue("2m") Duration maxDuration) {
+}
@@ -0,0 +1,136 @@
+package com.example.sentimentapi.health;
+
+import com.example.sentimentapi.service.SentimentService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a warm-up corpus through {@link SentimentService#analyzeUncached} once the
+ * application has started, so the parser and RNTN code paths are JIT-compiled before real traffic
+ * arrives.
+ *
+ * The corpus is replayed until the p95 latency of the most recent documents meets the
+ * target (after at least one full pass) or the maximum duration runs out. Until then
+ * {@link SentimentHealthIndicator} keeps the pod out of the readiness group.
+ */
+@Component
+public class WarmupRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private final SentimentService sentimentService;
+    private final WarmupProperties properties;
+    private final ResourceLoader resourceLoader;
+    private final AtomicInteger iterations = new AtomicInteger();
+
+    private volatile boolean complete;
+    private volatile long durationNanos;
+
+    public WarmupRunner(SentimentService sentimentService, WarmupProperties properties,
+                        ResourceLoader resourceLoader, MeterRegistry meterRegistry) {
+        this.sentimentService = sentimentService;
+        this.properties = properties;
+        this.resourceLoader = resourceLoader;
+
+        Gauge.builder("sentiment.warmup.iterations", iterations, AtomicInteger::get)
+                .description("Documents analyzed during warm-up")
+                .register(meterRegistry);
+        TimeGauge.builder("sentiment.warmup.duration", () -> durationNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent warming up before reporting ready")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.warmup.complete", () -> complete ? 1 : 0)
+                .description("Whether warm-up has finished (1) or is still running (0)")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            complete = true;
+            return;
+        }
+        Thread thread = new Thread(this::run, "sentiment-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int iterations() {
+        return iterations.get();
+    }
+
+    public long durationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        long deadline = start + properties.maxDuration().toNanos();
+        long target = properties.latencyTarget().toNanos();
+        long[] recent = new long[Math.max(1, properties.window())];
+        boolean targetMet = false;
+        try {
+            List<String> corpus = loadCorpus();
+            logger.info("Warming up on {} documents (p95 target {})", corpus.size(), properties.latencyTarget());
+            int minimum = Math.max(recent.length, corpus.size());
+            while (!corpus.isEmpty() && !targetMet && System.nanoTime() < deadline) {
+                for (String text : corpus) {
+                    long begin = System.nanoTime();
+                    sentimentService.analyzeUncached(text);
+                    int n = iterations.incrementAndGet();
+                    recent[(n - 1) % recent.length] = System.nanoTime() - begin;
+                    durationNanos = System.nanoTime() - start;
+                    if (n >= minimum && p95(recent) <= target) {
+                        targetMet = true;
+                        break;
+                    }
+                    if (System.nanoTime() >= deadline) {
+                        break;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Warm-up failed, reporting ready without it", e);
+        }
+        durationNanos = System.nanoTime() - start;
+        complete = true;
+        if (targetMet) {
+            logger.info("Warm-up finished after {} documents in {} ms", iterations.get(), durationMillis());
+        } else {
+            logger.warn("Warm-up stopped after {} documents in {} ms without meeting the latency target",
+                    iterations.get(), durationMillis());
+        }
+    }
+
+    private List<String> loadCorpus() throws IOException {
+        try (InputStream in = resourceLoader.getResource(properties.corpus()).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.isBlank())
+                    .toList();
+        }
+    }
+
+    private static long p95(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(0.95 * sorted.length) - 1];
+    }
+}
@@ -0,0 +1,459 @@
+package com.example.sentimentapi.jobs;
+
+import com.example.sentimentapi.jobs.JobStatus.State;
+import com.example.sentimentapi.service.PipelineUnavailableException;
+import com.example.sentimentapi.service.SentimentService;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bulk jobs: large JSONL inputs analyzed in the background, chunk by chunk.
+ *
+ * An upload is streamed to disk while the byte offset of every chunk is recorded, so
+ * a chunk can later be read on its own. Chunks are analyzed with
+ * {@link SentimentService#analyzeBatchAsync} by a small fixed pool, and each chunk's
+ * results are written to a temporary file and moved into place, so a result file is
+ * always complete. After a restart, unfinished jobs are picked up and only chunks
+ * without a result file are analyzed again. When every chunk is done the results are
+ * concatenated in input order.
+ */
+@Service
+public class BulkJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkJobService.class);
+
+    private static final String MANIFEST = "job.json";
+    private static final String INPUT = "input.jsonl";
+    private static final String RESULTS = "results.jsonl";
+    private static final String CHUNKS = "chunks";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    // Chunks are read into one array
+    private static final long MAX_CHUNK_BYTES = Integer.MAX_VALUE - 8;
+
+    private final JobProperties properties;
+    private final SentimentService sentimentService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Counter analyzedLines;
+    private final Counter analyzedChunks;
+
+    public BulkJobService(JobProperties properties, SentimentService sentimentService, ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.sentimentService = sentimentService;
+        this.objectMapper = objectMapper;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.concurrency(), properties.concurrency(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-job-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.analyzedLines = Counter.builder("sentiment.jobs.lines")
+                .description("Input lines analyzed by bulk jobs")
+                .register(meterRegistry);
+        this.analyzedChunks = Counter.builder("sentiment.jobs.chunks")
+                .description("Bulk job chunks analyzed")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.jobs.queue", executor, e -> e.getQueue().size())
+                .description("Bulk job chunks waiting to be analyzed")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.jobs.running", jobs,
+                        j -> j.values().stream().filter(job -> job.manifest.state() == State.RUNNING).count())
+                .description("Bulk jobs that have not finished")
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Picks up jobs left unfinished by an earlier process.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        if (!properties.enabled() || !Files.isDirectory(properties.directory())) {
+            return;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(properties.directory(), Files::isDirectory)) {
+            for (Path dir : dirs) {
+                try {
+                    resume(dir);
+                } catch (IOException | RuntimeException e) {
+                    // Left in place for inspection; the other jobs still resume
+                    logger.error("Failed to resume bulk job from {}", dir, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to resume bulk jobs from {}", properties.directory(), e);
+        }
+    }
+
+    private void resume(Path dir) throws IOException {
+        Path manifestFile = dir.resolve(MANIFEST);
+        if (!Files.exists(manifestFile)) {
+            // The upload never finished
+            FileSystemUtils.deleteRecursively(dir);
+            return;
+        }
+        Job job = new Job(dir, objectMapper.readValue(manifestFile.toFile(), Manifest.class));
+        jobs.put(job.manifest.id(), job);
+        if (job.manifest.state() == State.RUNNING) {
+            logger.info("Resuming bulk job {}", job.manifest.id());
+            start(job);
+        }
+    }
+
+    /**
+     * Stores a JSONL input on disk and queues its chunks.
+     *
+     * @param input One JSON object such as {"text": "..."} per line
+     * @return Status of the new job
+     * @throws JobInputTooLargeException if the input exceeds the maximum input size or a chunk exceeds 2GB
+     * @throws IOException if the input cannot be read or stored
+     */
+    public JobStatus submit(InputStream input) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path dir = properties.directory().resolve(id);
+        Files.createDirectories(dir.resolve(CHUNKS));
+        int chunkSize = properties.chunkSize();
+        long maxInputSize = properties.maxInputSize().toBytes();
+        List<Long> offsets = new ArrayList<>();
+        long lines = 0;
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(dir.resolve(INPUT))) {
+            byte[] buffer = new byte[64 * 1024];
+            boolean inLine = false;
+            int n;
+            while ((n = input.read(buffer)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (!inLine) {
+                        if (lines % chunkSize == 0) {
+                            offsets.add(size + i);
+                        }
+                        inLine = true;
+                    }
+                    if (buffer[i] == '\n') {
+                        lines++;
+                        inLine = false;
+                    }
+                }
+                out.write(buffer, 0, n);
+                size += n;
+                if (size > maxInputSize) {
+                    throw new JobInputTooLargeException("Job inputs are limited to " + properties.maxInputSize());
+                }
+                if (size - offsets.get(offsets.size() - 1) > MAX_CHUNK_BYTES) {
+                    throw new JobInputTooLargeException("A chunk of " + chunkSize + " lines exceeds 2GB");
+                }
+            }
+            if (inLine) {
+                lines++;
+            }
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(dir);
+            throw e;
+        }
+
+        Manifest manifest = new Manifest(id, State.RUNNING, lines, size, chunkSize,
+                offsets.stream().mapToLong(Long::longValue).toArray(), Instant.now(), null);
+        Job job = new Job(dir, manifest);
+        save(dir, manifest);
+        jobs.put(id, job);
+        logger.info("Accepted bulk job {}: {} lines in {} chunks", id, lines, offsets.size());
+        start(job);
+        return job.status();
+    }
+
+    /**
+     * @return The job's progress, or null if there is no such job
+     */
+    public JobStatus status(String id) {
+        Job job = jobs.get(id);
+        return job != null ? job.status() : null;
+    }
+
+    /**
+     * @return The results file of a completed job, or null if there is no such job or it has not completed
+     */
+    public Path results(String id) {
+        Job job = jobs.get(id);
+        return job != null && job.manifest.state() == State.COMPLETED ? job.dir.resolve(RESULTS) : null;
+    }
+
+    /**
+     * Deletes a job with its input and results; chunks still queued are skipped.
+     *
+     * @return false if there is no such job
+     */
+    public boolean delete(String id) throws IOException {
+        Job job = jobs.remove(id);
+        if (job == null) {
+            return false;
+        }
+        job.deleted = true;
+        FileSystemUtils.deleteRecursively(job.dir);
+        return true;
+    }
+
+    /**
+     * Stops queued chunks and waits a while for running ones, so a job that is finishing
+     * is not cut off between writing its results and cleaning up.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Bulk job chunks still running after {}s; they resume after the restart",
+                        SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues the chunks that have no results yet.
+     */
+    private void start(Job job) throws IOException {
+        int chunks = job.manifest.offsets().length;
+        List<Integer> pending = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            Files.deleteIfExists(tempFile(chunkFile(job, chunk)));
+            if (Files.exists(chunkFile(job, chunk))) {
+                job.completed.incrementAndGet();
+            } else {
+                pending.add(chunk);
+            }
+        }
+        if (pending.isEmpty()) {
+            executor.execute(() -> finish(job));
+        }
+        for (int chunk : pending) {
+            executor.execute(() -> runChunk(job, chunk));
+        }
+    }
+
+    private void runChunk(Job job, int chunk) {
+        if (job.deleted || job.manifest.state() != State.RUNNING) {
+            return;
+        }
+        try {
+            analyzeChunk(job, chunk);
+            analyzedChunks.increment();
+            if (job.completed.incrementAndGet() == job.manifest.offsets().length) {
+                finish(job);
+            }
+        } catch (InterruptedException e) {
+            // Shutting down; the chunk is analyzed again after a restart
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            if (!job.deleted) {
+                logger.error("Bulk job {} failed in chunk {}", job.manifest.id(), chunk, e);
+                update(job, State.FAILED);
+            }
+        }
+    }
+
+    private void analyzeChunk(Job job, int chunk) throws IOException, InterruptedException {
+        Manifest manifest = job.manifest;
+        long start = manifest.offsets()[chunk];
+        long end = chunk + 1 < manifest.offsets().length ? manifest.offsets()[chunk + 1] : manifest.size();
+        ByteBuffer bytes = ByteBuffer.allocate(Math.toIntExact(end - start));
+        try (FileChannel channel = FileChannel.open(job.dir.resolve(INPUT))) {
+            while (bytes.hasRemaining() && channel.read(bytes, start + bytes.position()) >= 0) {
+                // Read until the chunk is complete
+            }
+        }
+        String[] lines = new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8).split("\n", -1);
+
+        List<String> texts = new ArrayList<>(lines.length);
+        String[] lineTexts = new String[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            if (!lines[i].isBlank()) {
+                lineTexts[i] = text(lines[i]);
+                if (lineTexts[i] != null) {
+                    texts.add(lineTexts[i]);
+                }
+            }
+        }
+        List<SentimentResult> results = analyze(texts);
+
+        long firstIndex = (long) chunk * manifest.chunkSize();
+        Path file = chunkFile(job, chunk);
+        Path temp = tempFile(file);
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            int next = 0;
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i].isBlank()) {
+                    continue;
+                }
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("index", firstIndex + i);
+                if (lineTexts[i] == null) {
+                    line.put("error", "Line " + (firstIndex + i + 1) + " is not a JSON object with a text");
+                } else {
+                    SentimentResult result = results.get(next++);
+                    line.put("text", lineTexts[i]);
+                    line.put("sentiment", result.sentiment());
+                    line.put("confidence", result.confidence());
+                }
+                out.write(objectMapper.writeValueAsBytes(line));
+                out.write('\n');
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        analyzedLines.increment(texts.size());
+    }
+
+    /**
+     * Analyzes the texts of a chunk, waiting and retrying up to the retry limit while the
+     * inference queue is full. Other failures fail the chunk at once.
+     */
+    private List<SentimentResult> analyze(List<String> texts) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return sentimentService.analyzeBatchAsync(texts).join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof PipelineUnavailableException) || attempt >= properties.maxRetries()) {
+                    throw e;
+                }
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private String text(String line) {
+        try {
+            return objectMapper.readTree(line).path("text").textValue();
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Concatenates the chunk results in order and marks the job completed.
+     */
+    private void finish(Job job) {
+        if (job.deleted) {
+            return;
+        }
+        try {
+            Path results = job.dir.resolve(RESULTS);
+            Path temp = tempFile(results);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                for (int chunk = 0; chunk < job.manifest.offsets().length; chunk++) {
+                    Files.copy(chunkFile(job, chunk), out);
+                }
+            }
+            Files.move(temp, results, StandardCopyOption.ATOMIC_MOVE);
+            update(job, State.COMPLETED);
+            FileSystemUtils.deleteRecursively(job.dir.resolve(CHUNKS));
+            Files.deleteIfExists(job.dir.resolve(INPUT));
+            logger.info("Bulk job {} completed: {} lines", job.manifest.id(), job.manifest.lines());
+        } catch (IOException e) {
+            logger.error("Failed to write the results of bulk job {}", job.manifest.id(), e);
+            update(job, State.FAILED);
+        }
+    }
+
+    /**
+     * Records the job's final state, on disk first, so a state seen by clients survives a restart.
+     */
+    private void update(Job job, State state) {
+        Manifest finished = job.manifest.finish(state, Instant.now());
+        try {
+            save(job.dir, finished);
+        } catch (IOException e) {
+            logger.error("Failed to record the state of bulk job {}", finished.id(), e);
+        }
+        job.manifest = finished;
+    }
+
+    private void save(Path dir, Manifest manifest) throws IOException {
+        Path file = dir.resolve(MANIFEST);
+        Path temp = tempFile(file);
+        objectMapper.writeValue(temp.toFile(), manifest);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path chunkFile(Job job, int chunk) {
+        return job.dir.resolve(CHUNKS).resolve(chunk + ".jsonl");
+    }
+
+    private static Path tempFile(Path file) {
+        return file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+    }
+
+    /**
+     * What is stored about a job next to its input.
+     *
+     * @param offsets Byte offset in the input where each chunk starts
+     */
+    record Manifest(String id, State state, long lines, long size, int chunkSize, long[] offsets,
+                    Instant submitted, Instant finished) {
+
+        Manifest finish(State state, Instant finished) {
+            return new Manifest(id, state, lines, size, chunkSize, offsets, submitted, finished);
+        }
+    }
+
+    private static final class Job {
+        private final Path dir;
+        private final AtomicInteger completed = new AtomicInteger();
+        private volatile Manifest manifest;
+        private volatile boolean deleted;
+
+        private Job(Path dir, Manifest manifest) {
+            this.dir = dir;
+            this.manifest = manifest;
+        }
+
+        private JobStatus status() {
+            Manifest m = manifest;
+            int chunks = m.offsets().length;
+            return new JobStatus(m.id(), m.state(), m.lines(), chunks,
+                    m.state() == State.COMPLETED ? chunks : completed.get(), m.submitted(), m.finished());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.sentimentapi.jobs;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a job input exceeds the maximum input size, or one of its chunks is too
+ * large to be read at once.
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class JobInputTooLargeException extends RuntimeException {
+
+    public JobInputTooLargeException(String message) {
+        super(message);
+    }
+}
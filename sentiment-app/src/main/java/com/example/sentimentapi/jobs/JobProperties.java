@@ -0,0 +1,29 @@
+package com.example.sentimentapi.jobs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for asynchronous bulk jobs.
+ *
+ * @param enabled Whether the job API accepts jobs
+ * @param directory Directory holding job inputs, progress and results; mount a persistent volume
+ *                  here for jobs to resume after a restart
+ * @param chunkSize Input lines analyzed together as one chunk
+ * @param concurrency Chunks analyzed at once across all jobs
+ * @param maxRetries Times a chunk is retried, a second apart, while the inference queue is
+ *                   full; the job fails after that
+ * @param maxInputSize Largest input accepted; larger uploads are stopped and rejected
+ */
+@ConfigurationProperties(prefix = "sentiment.jobs")
+public record JobProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("/var/lib/sentiment/jobs") Path directory,
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("2") int concurrency,
+        @DefaultValue("60") int maxRetries,
+        @DefaultValue("1GB") DataSize maxInputSize) {
+}
@@ -0,0 +1,27 @@
+package com.example.sentimentapi.jobs;
+
+import java.time.Instant;
+
+/**
+ * Progress of a bulk job.
+ *
+ * @param id Job id
+ * @param state Where the job is in its lifecycle
+ * @param lines Input lines
+ * @param chunks Chunks the input was split into
+ * @param completedChunks Chunks whose results are on disk
+ * @param submitted When the input was accepted
+ * @param finished When the results were complete or the job failed, or null
+ */
+public record JobStatus(String id, State state, long lines, int chunks, int completedChunks,
+                        Instant submitted, Instant finished) {
+
+    public enum State {
+        /** Chunks are waiting for or being analyzed. */
+        RUNNING,
+        /** Results can be downloaded. */
+        COMPLETED,
+        /** Results could not be written. */
+        FAILED
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.sentimentapi.rntn;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Word vectors of an RNTN model, one row of numHid values per vocabulary entry.
+ *
+ * The vocabulary is by far the largest part of the model, so rows stay in their
+ * stored precision, possibly in a memory-mapped file, and are widened to double
+ * only when a leaf is evaluated.
+ */
+sealed interface LeafTable {
+
+    /**
+     * Copies one row, widened to double, into dest starting at offset.
+     */
+    void copy(int row, double[] dest, int offset);
+
+    /**
+     * Bytes held by the table's values and scales.
+     */
+    long sizeInBytes();
+
+    record Float64(DoubleBuffer values, int cols) implements LeafTable {
+        @Override
+        public void copy(int row, double[] dest, int offset) {
+            values.get(row * cols, dest, offset, cols);
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return (long) values.capacity() * Double.BYTES;
+        }
+    }
+
+    record Float32(FloatBuffer values, int cols) implements LeafTable {
+        @Override
+        public void copy(int row, double[] dest, int offset) {
+            int base = row * cols;
+            for (int i = 0; i < cols; i++) {
+                dest[offset + i] = values.get(base + i);
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return (long) values.capacity() * Float.BYTES;
+        }
+    }
+
+    record Int8(ByteBuffer values, FloatBuffer scales, int cols) implements LeafTable {
+        @Override
+        public void copy(int row, double[] dest, int offset) {
+            int base = row * cols;
+            double scale = scales.get(row);
+            for (int i = 0; i < cols; i++) {
+                dest[offset + i] = values.get(base + i) * scale;
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return values.capacity() + (long) scales.capacity() * Float.BYTES;
+        }
+    }
+}
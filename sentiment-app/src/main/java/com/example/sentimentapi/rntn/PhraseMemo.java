@@ -0,0 +1,65 @@
+package com.example.sentimentapi.rntn;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded memo of node vectors for small, frequent subtrees ("not bad", "very good").
+ *
+ * With a simplified model a node vector depends only on the shape of its subtree and
+ * the vocabulary rows of its leaves, so the key is a pre-order encoding of both: one
+ * char per leaf holding its vocabulary row, and a marker char per binary node. Only
+ * subtrees of up to maxLeaves leaves are memoized; larger ones rarely repeat. Cached
+ * vectors are the exact values computed earlier, so predictions do not change.
+ */
+public final class PhraseMemo {
+
+    private static final char NODE = '\uffff';
+
+    private final int maxLeaves;
+    private final Cache<String, double[]> vectors;
+
+    public PhraseMemo(int maxLeaves, long maximumSize) {
+        this.maxLeaves = maxLeaves;
+        this.vectors = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The underlying cache, for metrics.
+     */
+    public Cache<String, double[]> cache() {
+        return vectors;
+    }
+
+    /**
+     * Key of a single word, or null if its row does not fit the encoding.
+     */
+    String leafKey(int word) {
+        return word < NODE ? String.valueOf((char) word) : null;
+    }
+
+    /**
+     * Key of a binary node, or null if a child has no key or the subtree is too large.
+     */
+    String nodeKey(String left, String right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        // n leaves take 2n - 1 chars
+        int leaves = (left.length() + right.length() + 2) / 2;
+        return leaves <= maxLeaves ? NODE + left + right : null;
+    }
+
+    double[] get(String key) {
+        return vectors.getIfPresent(key);
+    }
+
+    void put(String key, double[] nodeVectors, int offset, int length) {
+        double[] vector = new double[length];
+        System.arraycopy(nodeVectors, offset, vector, 0, length);
+        vectors.put(key, vector);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.sentimentapi.rntn;
+
+import edu.stanford.nlp.trees.Tree;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Level-synchronous RNTN forward pass over many sentences at once.
+ *
+ * Nodes of all trees are grouped by height (leaves are 0, a parent is one above its
+ * highest child). Every node of a level only depends on lower levels, so each level is
+ * composed with one batched matrix product and one batched tensor pass, and the
+ * roots are classified together at the end. Each weight row and tensor slice is then
+ * read once per level instead of once per node. Per-node arithmetic is the same as in
+ * {@link RntnEvaluator}, so with scalar kernels the results are identical. Subtrees
+ * found in the {@link PhraseMemo} enter the batch as leaves.
+ */
+public final class RntnBatchEvaluator {
+
+    private final RntnWeights weights;
+    private final RntnKernels kernels;
+    private final PhraseMemo memo;
+    private final ThreadLocal<Scratch> scratch;
+
+    public RntnBatchEvaluator(RntnWeights weights, RntnKernels kernels) {
+        this(weights, kernels, null);
+    }
+
+    /**
+     * @param memo Memo of frequent phrase vectors, or null to compute every node
+     */
+    public RntnBatchEvaluator(RntnWeights weights, RntnKernels kernels, PhraseMemo memo) {
+        this.weights = weights;
+        this.kernels = kernels;
+        this.memo = memo;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(weights.numHid));
+    }
+
+    /**
+     * Scores the roots of many binarized trees.
+     *
+     * @param trees Binarized parse trees, as produced by the parse annotator
+     * @param probabilities Receives one class distribution per tree (each of length numClasses)
+     * @return The predicted class of each root
+     */
+    public int[] evaluate(List<Tree> trees, double[][] probabilities) {
+        Scratch s = scratch.get();
+        s.nodes = 0;
+        int[] roots = new int[trees.size()];
+        for (int t = 0; t < trees.size(); t++) {
+            roots[t] = flatten(trees.get(t), s);
+        }
+
+        int d = weights.numHid;
+        int inputSize = 2 * d + 1;
+        int[] order = s.orderByLevel();
+        int levelStart = s.levelCounts[0];
+        for (int level = 1; level <= s.maxLevel; level++) {
+            int count = s.levelCounts[level];
+            s.ensureBatch(count, inputSize);
+            for (int n = 0; n < count; n++) {
+                int node = order[levelStart + n];
+                int input = n * inputSize;
+                System.arraycopy(s.nodeVectors, s.left[node] * d, s.batchIn, input, d);
+                System.arraycopy(s.nodeVectors, s.right[node] * d, s.batchIn, input + d, d);
+                s.batchIn[input + 2 * d] = 1.0;
+            }
+            kernels.matMul(weights.transform, d, inputSize, s.batchIn, count, s.batchOut);
+            if (weights.useTensors) {
+                kernels.bilinearBatch(weights.tensor, d, 2 * d, s.batchIn, inputSize, count, s.rowVector, s.batchOut);
+            }
+            for (int n = 0; n < count; n++) {
+                int node = order[levelStart + n];
+                for (int i = 0; i < d; i++) {
+                    s.nodeVectors[node * d + i] = Math.tanh(s.batchOut[n * d + i]);
+                }
+                if (s.keys[node] != null) {
+                    memo.put(s.keys[node], s.nodeVectors, node * d, d);
+                }
+            }
+            levelStart += count;
+        }
+
+        int classes = weights.numClasses;
+        s.ensureBatch(roots.length, d + 1);
+        for (int t = 0; t < roots.length; t++) {
+            System.arraycopy(s.nodeVectors, roots[t] * d, s.batchIn, t * (d + 1), d);
+            s.batchIn[t * (d + 1) + d] = 1.0;
+        }
+        kernels.matMul(weights.classification, classes, d + 1, s.batchIn, roots.length, s.batchOut);
+
+        int[] predicted = new int[roots.length];
+        for (int t = 0; t < roots.length; t++) {
+            double[] p = probabilities[t];
+            System.arraycopy(s.batchOut, t * classes, p, 0, classes);
+            kernels.softmax(p, classes);
+            int argmax = 0;
+            for (int i = 1; i < classes; i++) {
+                if (p[i] > p[argmax]) {
+                    argmax = i;
+                }
+            }
+            predicted[t] = argmax;
+        }
+        return predicted;
+    }
+
+    /**
+     * Records a subtree's nodes in post-order, filling leaf vectors, and returns the root's id.
+     */
+    private int flatten(Tree tree, Scratch s) {
+        Tree[] children = tree.children();
+        // Collapse unary chains exactly as RntnEvaluator does
+        while (children.length == 1 && !children[0].isLeaf()) {
+            children = children[0].children();
+        }
+        int d = weights.numHid;
+        if (children.length == 1) {
+            int node = s.allocate(0);
+            int word = weights.wordIndex(children[0].label().value());
+            weights.leaves.copy(word, s.nodeVectors, node * d);
+            s.keys[node] = memo != null ? memo.leafKey(word) : null;
+            return node;
+        }
+        if (children.length != 2) {
+            throw new IllegalArgumentException("Expected a binarized tree, found a node with "
+                    + children.length + " children: " + tree);
+        }
+        int mark = s.nodes;
+        int left = flatten(children[0], s);
+        int right = flatten(children[1], s);
+        String key = memo != null ? memo.nodeKey(s.keys[left], s.keys[right]) : null;
+        if (key != null) {
+            double[] cached = memo.get(key);
+            if (cached != null) {
+                // Post-order allocation keeps the subtree's nodes at the end; drop them
+                // and enter the phrase as a leaf
+                s.nodes = mark;
+                int node = s.allocate(0);
+                System.arraycopy(cached, 0, s.nodeVectors, node * d, d);
+                s.keys[node] = key;
+                return node;
+            }
+        }
+        int node = s.allocate(1 + Math.max(s.level[left], s.level[right]));
+        s.left[node] = left;
+        s.right[node] = right;
+        s.keys[node] = key;
+        return node;
+    }
+
+    /**
+     * Per-thread working memory; arrays only grow.
+     */
+    private static final class Scratch {
+        private final int numHid;
+        private final double[] rowVector;
+        private double[] nodeVectors;
+        private int[] left = new int[256];
+        private int[] right = new int[256];
+        private int[] level = new int[256];
+        private int[] order = new int[256];
+        private String[] keys = new String[256];
+        private int[] levelCounts = new int[64];
+        private double[] batchIn = new double[0];
+        private double[] batchOut = new double[0];
+        private int nodes;
+        private int maxLevel;
+
+        private Scratch(int numHid) {
+            this.numHid = numHid;
+            // Batched kernels work on four inputs at a time
+            this.rowVector = new double[4 * 2 * numHid];
+            this.nodeVectors = new double[256 * numHid];
+        }
+
+        private int allocate(int nodeLevel) {
+            if (nodes == left.length) {
+                int capacity = nodes * 2;
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                level = Arrays.copyOf(level, capacity);
+                order = Arrays.copyOf(order, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                nodeVectors = Arrays.copyOf(nodeVectors, capacity * numHid);
+            }
+            level[nodes] = nodeLevel;
+            return nodes++;
+        }
+
+        /**
+         * Counting sort of node ids by level; fills levelCounts and maxLevel.
+         */
+        private int[] orderByLevel() {
+            maxLevel = 0;
+            for (int n = 0; n < nodes; n++) {
+                maxLevel = Math.max(maxLevel, level[n]);
+            }
+            if (levelCounts.length < maxLevel + 2) {
+                levelCounts = new int[maxLevel + 2];
+            }
+            Arrays.fill(levelCounts, 0);
+            for (int n = 0; n < nodes; n++) {
+                levelCounts[level[n]]++;
+            }
+            int[] next = new int[maxLevel + 1];
+            for (int l = 1; l <= maxLevel; l++) {
+                next[l] = next[l - 1] + levelCounts[l - 1];
+            }
+            for (int n = 0; n < nodes; n++) {
+                order[next[level[n]]++] = n;
+            }
+            return order;
+        }
+
+        private void ensureBatch(int count, int inputSize) {
+            if (batchIn.length < count * inputSize) {
+                batchIn = new double[count * inputSize];
+            }
+            // Output rows hold numHid values per node or numClasses per root
+            if (batchOut.length < count * Math.max(numHid, inputSize)) {
+                batchOut = new double[count * Math.max(numHid, inputSize)];
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.sentimentapi.rntn;
+
+import edu.stanford.nlp.trees.Tree;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free forward pass of the RNTN sentiment model over a binarized parse tree.
+ *
+ * With the scalar kernels it produces exactly the predictions of CoreNLP's sentiment
+ * annotator: unary chains are skipped the same way CollapseUnaryTransformer collapses
+ * them, and every sum runs in the same order as the EJML operations it replaces.
+ * The SIMD kernels reorder sums and may differ in the last bits. Node vectors live in
+ * per-thread scratch buffers that only grow, so steady-state evaluation allocates
+ * nothing but lowercased lookup keys and, with a {@link PhraseMemo}, short phrase keys.
+ */
+public final class RntnEvaluator {
+
+    private final RntnWeights weights;
+    private final RntnKernels kernels;
+    private final PhraseMemo memo;
+    private final ThreadLocal<Scratch> scratch;
+
+    public RntnEvaluator(RntnWeights weights, RntnKernels kernels) {
+        this(weights, kernels, null);
+    }
+
+    /**
+     * @param memo Memo of frequent phrase vectors, or null to compute every node
+     */
+    public RntnEvaluator(RntnWeights weights, RntnKernels kernels, PhraseMemo memo) {
+        this.weights = weights;
+        this.kernels = kernels;
+        this.memo = memo;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(weights.numHid));
+    }
+
+    public RntnWeights weights() {
+        return weights;
+    }
+
+    /**
+     * Scores the root of a binarized tree.
+     *
+     * @param tree Binarized parse tree, as produced by the parse annotator
+     * @param probabilities Receives the class distribution of the root (length numClasses)
+     * @return The predicted class of the root
+     */
+    public int evaluate(Tree tree, double[] probabilities) {
+        Scratch s = scratch.get();
+        s.nodes = 0;
+        int root = forward(tree, s);
+        int offset = root * weights.numHid;
+        return predict(s.nodeVectors, offset, s, probabilities);
+    }
+
+    /**
+     * Computes the node vector for a subtree and returns its slot in the scratch buffer.
+     */
+    private int forward(Tree tree, Scratch s) {
+        Tree[] children = tree.children();
+        // Collapse unary chains: a chain ending in a leaf is a word, otherwise use the first branching node
+        while (children.length == 1 && !children[0].isLeaf()) {
+            children = children[0].children();
+        }
+        int d = weights.numHid;
+        if (children.length == 1) {
+            int slot = s.allocate();
+            int word = weights.wordIndex(children[0].label().value());
+            weights.leaves.copy(word, s.nodeVectors, slot * d);
+            s.keys[slot] = memo != null ? memo.leafKey(word) : null;
+            return slot;
+        }
+        if (children.length != 2) {
+            throw new IllegalArgumentException("Expected a binarized tree, found a node with "
+                    + children.length + " children: " + tree);
+        }
+
+        int mark = s.nodes;
+        int left = forward(children[0], s);
+        int right = forward(children[1], s);
+        String key = memo != null ? memo.nodeKey(s.keys[left], s.keys[right]) : null;
+        if (key != null) {
+            double[] cached = memo.get(key);
+            if (cached != null) {
+                // The children's slots are no longer needed
+                s.nodes = mark;
+                int slot = s.allocate();
+                System.arraycopy(cached, 0, s.nodeVectors, slot * d, d);
+                s.keys[slot] = key;
+                return slot;
+            }
+        }
+        double[] in = s.childrenVector;
+        System.arraycopy(s.nodeVectors, left * d, in, 0, d);
+        System.arraycopy(s.nodeVectors, right * d, in, d, d);
+        in[2 * d] = 1.0;
+
+        int slot = s.allocate();
+        double[] out = s.nodeVectors;
+        int outOffset = slot * d;
+        kernels.matVec(weights.transform, d, 2 * d + 1, in, out, outOffset);
+        if (weights.useTensors) {
+            kernels.bilinear(weights.tensor, d, 2 * d, in, s.rowVector, out, outOffset);
+        }
+        for (int i = 0; i < d; i++) {
+            out[outOffset + i] = Math.tanh(out[outOffset + i]);
+        }
+        s.keys[slot] = key;
+        if (key != null) {
+            memo.put(key, out, outOffset, d);
+        }
+        return slot;
+    }
+
+    private int predict(double[] nodeVectors, int offset, Scratch s, double[] probabilities) {
+        int d = weights.numHid;
+        int classes = weights.numClasses;
+        double[] in = s.childrenVector;
+        System.arraycopy(nodeVectors, offset, in, 0, d);
+        in[d] = 1.0;
+        kernels.matVec(weights.classification, classes, d + 1, in, probabilities, 0);
+        kernels.softmax(probabilities, classes);
+
+        int argmax = 0;
+        for (int i = 1; i < classes; i++) {
+            if (probabilities[i] > probabilities[argmax]) {
+                argmax = i;
+            }
+        }
+        return argmax;
+    }
+
+    /**
+     * Per-thread working memory.
+     */
+    private static final class Scratch {
+        private final int numHid;
+        private final double[] childrenVector;
+        private final double[] rowVector;
+        private double[] nodeVectors;
+        private String[] keys;
+        private int nodes;
+
+        private Scratch(int numHid) {
+            this.numHid = numHid;
+            this.childrenVector = new double[2 * numHid + 1];
+            this.rowVector = new double[2 * numHid];
+            this.nodeVectors = new double[128 * numHid];
+            this.keys = new String[128];
+        }
+
+        private int allocate() {
+            if ((nodes + 1) * numHid > nodeVectors.length) {
+                nodeVectors = Arrays.copyOf(nodeVectors, nodeVectors.length * 2);
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            return nodes++;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.sentimentapi.rntn;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dense kernels of the RNTN forward pass on flat row-major arrays.
+ */
+public interface RntnKernels {
+
+    /**
+     * out[offset + i] = sum_j matrix[i][j] * in[j] for a rows x cols matrix.
+     */
+    void matVec(double[] matrix, int rows, int cols, double[] in, double[] out, int offset);
+
+    /**
+     * out[offset + s] += in^T * slice[s] * in for each of the slices of size x size.
+     *
+     * @param rowVector Scratch of length size holding in^T * slice[s]
+     */
+    void bilinear(double[] tensor, int slices, int size, double[] in, double[] rowVector, double[] out, int offset);
+
+    /**
+     * Batched matVec over n input rows: out[r][i] = sum_j matrix[i][j] * in[r][j].
+     * Each matrix row is applied to every input before moving on, so it stays in cache.
+     */
+    void matMul(double[] matrix, int rows, int cols, double[] in, int n, double[] out);
+
+    /**
+     * Batched bilinear over n input rows of stride inStride, using the first size entries
+     * of each: out[r][s] += in[r]^T * slice[s] * in[r]. Each slice is applied to every
+     * input before moving to the next one.
+     *
+     * @param rowVector Scratch of length 4 * size
+     */
+    void bilinearBatch(double[] tensor, int slices, int size, double[] in, int inStride, int n,
+                       double[] rowVector, double[] out);
+
+    /**
+     * In-place softmax over the first n entries, without max subtraction, as NeuralUtils does.
+     */
+    void softmax(double[] values, int n);
+
+    /**
+     * Scalar kernels, bit-for-bit identical to CoreNLP's sentiment annotator.
+     */
+    static RntnKernels scalar() {
+        return new ScalarKernels();
+    }
+
+    /**
+     * Picks the Vector API kernels when requested and the jdk.incubator.vector module
+     * is present (JVM started with --add-modules jdk.incubator.vector), scalar otherwise.
+     * 
+     * @param simd Whether SIMD kernels may be used
+     */
+    static RntnKernels select(boolean simd) {
+        Logger logger = LoggerFactory.getLogger(RntnKernels.class);
+        if (simd && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded reflectively so this class never links against the incubator module
+                RntnKernels kernels = (RntnKernels) Class.forName("com.example.sentimentapi.rntn.VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+                logger.info("Using Vector API RNTN kernels ({})", kernels);
+                return kernels;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Vector API RNTN kernels unavailable, using scalar kernels", e);
+            }
+        }
+        return scalar();
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.sentimentapi.rntn;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes RNTN weights in a compact binary layout.
+ *
+ * The file holds a fixed header, the vocabulary in row order, then the transform,
+ * tensor, classifier and word vectors as row-major blocks in the chosen precision
+ * (int8 blocks start with one float scale per row). Blocks are padded to 8 bytes.
+ * Files are memory-mapped: word vectors are read straight from the mapping, so
+ * loading them costs nothing and JVMs on one node share them through the page
+ * cache. The much smaller matrices are widened to double on load so the kernels
+ * stay unchanged.
+ */
+public final class RntnModelFile {
+
+    /** File name extension of converted models. */
+    public static final String EXTENSION = ".rntn";
+
+    private static final int MAGIC = 0x524E544E;
+    private static final int VERSION = 1;
+    private static final int FLAG_TENSORS = 1;
+    private static final int FLAG_LOWERCASE = 2;
+
+    private RntnModelFile() {
+    }
+
+    /**
+     * Checks whether a model path names a converted model rather than a serialized CoreNLP model.
+     */
+    public static boolean isModelFile(String path) {
+        return path.endsWith(EXTENSION);
+    }
+
+    /**
+     * Writes weights to a file, rounding them to the given precision.
+     *
+     * @param weights Weights copied from a CoreNLP model
+     * @param precision Precision of the stored values
+     * @param path Destination file
+     */
+    public static void write(RntnWeights weights, RntnPrecision precision, Path path) throws IOException {
+        int d = weights.numHid;
+        int words = weights.vocabulary.size();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(precision.ordinal());
+            out.writeInt(d);
+            out.writeInt(weights.numClasses);
+            out.writeInt((weights.useTensors ? FLAG_TENSORS : 0) | (weights.lowercaseWords ? FLAG_LOWERCASE : 0));
+            out.writeInt(words);
+
+            String[] vocabulary = new String[words];
+            weights.vocabulary.forEach((word, row) -> vocabulary[row] = word);
+            for (String word : vocabulary) {
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            pad(out);
+
+            writeRows(out, weights.transform, d, 2 * d + 1, precision);
+            writeRows(out, weights.tensor, weights.tensor.length / (2 * d), 2 * d, precision);
+            writeRows(out, weights.classification, weights.numClasses, d + 1, precision);
+            double[] leaves = new double[words * d];
+            for (int row = 0; row < words; row++) {
+                weights.leaves.copy(row, leaves, row * d);
+            }
+            writeRows(out, leaves, words, d, precision);
+        }
+    }
+
+    /**
+     * Maps a converted model into memory.
+     *
+     * @param path File written by {@link #write}
+     * @return Weights whose word vectors are backed by the mapped file
+     */
+    public static RntnWeights read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an RNTN model file: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported RNTN model file version " + version + ": " + path);
+        }
+        RntnPrecision precision = RntnPrecision.values()[buffer.getInt()];
+        int d = buffer.getInt();
+        int numClasses = buffer.getInt();
+        int flags = buffer.getInt();
+        int words = buffer.getInt();
+
+        Map<String, Integer> vocabulary = new HashMap<>(words * 2);
+        for (int row = 0; row < words; row++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            vocabulary.put(new String(bytes, StandardCharsets.UTF_8), row);
+        }
+        align(buffer);
+
+        boolean useTensors = (flags & FLAG_TENSORS) != 0;
+        double[] transform = readRows(buffer, d, 2 * d + 1, precision);
+        double[] tensor = readRows(buffer, useTensors ? d * 2 * d : 0, 2 * d, precision);
+        double[] classification = readRows(buffer, numClasses, d + 1, precision);
+        LeafTable leaves = readLeaves(buffer, words, d, precision);
+        return new RntnWeights(d, numClasses, useTensors, (flags & FLAG_LOWERCASE) != 0, precision,
+                transform, tensor, classification, leaves, vocabulary);
+    }
+
+    private static void writeRows(DataOutputStream out, double[] data, int rows, int cols,
+                                  RntnPrecision precision) throws IOException {
+        switch (precision) {
+            case FLOAT64 -> {
+                for (double value : data) {
+                    out.writeDouble(value);
+                }
+            }
+            case FLOAT32 -> {
+                for (double value : data) {
+                    out.writeFloat((float) value);
+                }
+            }
+            case INT8 -> {
+                float[] scales = new float[rows];
+                for (int r = 0; r < rows; r++) {
+                    double max = 0;
+                    for (int c = 0; c < cols; c++) {
+                        max = Math.max(max, Math.abs(data[r * cols + c]));
+                    }
+                    scales[r] = max == 0 ? 1f : (float) (max / 127);
+                    out.writeFloat(scales[r]);
+                }
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        long q = Math.round(data[r * cols + c] / scales[r]);
+                        out.writeByte((int) Math.max(-127, Math.min(127, q)));
+                    }
+                }
+            }
+        }
+        pad(out);
+    }
+
+    private static double[] readRows(ByteBuffer buffer, int rows, int cols, RntnPrecision precision) {
+        double[] data = new double[rows * cols];
+        switch (precision) {
+            case FLOAT64 -> buffer.asDoubleBuffer().get(data);
+            case FLOAT32 -> {
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = buffer.getFloat(buffer.position() + i * Float.BYTES);
+                }
+            }
+            case INT8 -> {
+                int values = buffer.position() + rows * Float.BYTES;
+                for (int r = 0; r < rows; r++) {
+                    double scale = buffer.getFloat(buffer.position() + r * Float.BYTES);
+                    for (int c = 0; c < cols; c++) {
+                        data[r * cols + c] = buffer.get(values + r * cols + c) * scale;
+                    }
+                }
+            }
+        }
+        buffer.position(buffer.position() + blockSize(rows, cols, precision));
+        align(buffer);
+        return data;
+    }
+
+    private static LeafTable readLeaves(ByteBuffer buffer, int rows, int cols, RntnPrecision precision) {
+        int start = buffer.position();
+        LeafTable leaves = switch (precision) {
+            case FLOAT64 -> new LeafTable.Float64(
+                    buffer.slice(start, rows * cols * Double.BYTES).asDoubleBuffer(), cols);
+            case FLOAT32 -> new LeafTable.Float32(
+                    buffer.slice(start, rows * cols * Float.BYTES).asFloatBuffer(), cols);
+            case INT8 -> new LeafTable.Int8(
+                    buffer.slice(start + rows * Float.BYTES, rows * cols),
+                    buffer.slice(start, rows * Float.BYTES).asFloatBuffer(), cols);
+        };
+        buffer.position(start + blockSize(rows, cols, precision));
+        align(buffer);
+        return leaves;
+    }
+
+    private static int blockSize(int rows, int cols, RntnPrecision precision) {
+        return switch (precision) {
+            case FLOAT64 -> rows * cols * Double.BYTES;
+            case FLOAT32 -> rows * cols * Float.BYTES;
+            case INT8 -> rows * Float.BYTES + rows * cols;
+        };
+    }
+
+    private static void pad(DataOutputStream out) throws IOException {
+        while (out.size() % 8 != 0) {
+            out.writeByte(0);
+        }
+    }
+
+    private static void align(ByteBuffer buffer) {
+        buffer.position((buffer.position() + 7) & ~7);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.sentimentapi.rntn;
+
+/**
+ * Numeric precision of the weights stored in a converted RNTN model file.
+ */
+public enum RntnPrecision {
+    /** Original double-precision weights; predictions match CoreNLP. */
+    FLOAT64,
+    /** Single-precision weights, half the size of the original. */
+    FLOAT32,
+    /** Signed bytes with one float scale per row, an eighth of the original size. */
+    INT8
+}
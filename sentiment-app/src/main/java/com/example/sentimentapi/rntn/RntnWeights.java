@@ -0,0 +1,140 @@
+package com.example.sentimentapi.rntn;
+
+import edu.stanford.nlp.neural.SimpleTensor;
+import edu.stanford.nlp.sentiment.SentimentModel;
+import org.ejml.simple.SimpleMatrix;
+
+import java.nio.DoubleBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RNTN sentiment weights copied out of a CoreNLP {@link SentimentModel} into flat,
+ * row-major arrays, or loaded from a converted {@link RntnModelFile}.
+ *
+ * Only simplified models with combined classification are supported (the shipped
+ * English model is one): every node shares one transform, one tensor and one
+ * classifier, so parse categories do not affect the computation.
+ */
+public final class RntnWeights {
+
+    static final String UNKNOWN_WORD = "*UNK*";
+
+    final int numHid;
+    final int numClasses;
+    final boolean useTensors;
+    final boolean lowercaseWords;
+    final RntnPrecision precision;
+
+    /** numHid x (2 * numHid + 1): W applied to [left; right; 1]. */
+    final double[] transform;
+    /** numHid slices of (2 * numHid) x (2 * numHid), indexed [slice][row][col]. */
+    final double[] tensor;
+    /** numClasses x (numHid + 1): classifier applied to [node; 1]. */
+    final double[] classification;
+    /** One row of numHid per vocabulary entry, with tanh already applied. */
+    final LeafTable leaves;
+    final Map<String, Integer> vocabulary;
+    final int unknownIndex;
+
+    RntnWeights(int numHid, int numClasses, boolean useTensors, boolean lowercaseWords, RntnPrecision precision,
+                double[] transform, double[] tensor, double[] classification,
+                LeafTable leaves, Map<String, Integer> vocabulary) {
+        this.numHid = numHid;
+        this.numClasses = numClasses;
+        this.useTensors = useTensors;
+        this.lowercaseWords = lowercaseWords;
+        this.precision = precision;
+        this.transform = transform;
+        this.tensor = tensor;
+        this.classification = classification;
+        this.leaves = leaves;
+        this.vocabulary = vocabulary;
+        this.unknownIndex = vocabulary.get(UNKNOWN_WORD);
+    }
+
+    /**
+     * Copies the weights of a CoreNLP sentiment model.
+     *
+     * @param model A simplified sentiment model
+     * @return Flat weights producing the same predictions as the model
+     * @throws IllegalArgumentException if the model uses per-category matrices
+     */
+    public static RntnWeights from(SentimentModel model) {
+        if (!model.op.simplifiedModel || !model.op.combineClassification) {
+            throw new IllegalArgumentException(
+                    "Flat RNTN evaluation needs a simplified sentiment model with combined classification");
+        }
+        int numHid = model.numHid;
+        // With a simplified model every category maps to the same matrices
+        double[] transform = toArray(model.getBinaryTransform("", ""));
+        double[] tensor = model.op.useTensors ? toArray(model.getBinaryTensor("", "")) : new double[0];
+        double[] classification = toArray(model.getUnaryClassification(""));
+
+        Map<String, Integer> vocabulary = new HashMap<>(model.wordVectors.size() * 2);
+        double[] leafVectors = new double[model.wordVectors.size() * numHid];
+        int row = 0;
+        for (Map.Entry<String, SimpleMatrix> entry : model.wordVectors.entrySet()) {
+            SimpleMatrix vector = entry.getValue();
+            for (int i = 0; i < numHid; i++) {
+                leafVectors[row * numHid + i] = Math.tanh(vector.get(i));
+            }
+            vocabulary.put(entry.getKey(), row++);
+        }
+        return new RntnWeights(numHid, model.numClasses, model.op.useTensors, model.op.lowercaseWordVectors,
+                RntnPrecision.FLOAT64, transform, tensor, classification,
+                new LeafTable.Float64(DoubleBuffer.wrap(leafVectors), numHid), vocabulary);
+    }
+
+    public int numHid() {
+        return numHid;
+    }
+
+    public int numClasses() {
+        return numClasses;
+    }
+
+    public RntnPrecision precision() {
+        return precision;
+    }
+
+    public int vocabularySize() {
+        return vocabulary.size();
+    }
+
+    /**
+     * Memory held by the word vectors, the bulk of the model.
+     */
+    public long leafBytes() {
+        return leaves.sizeInBytes();
+    }
+
+    /**
+     * Vocabulary row for a word, following CoreNLP's lookup rules.
+     */
+    int wordIndex(String word) {
+        Integer index = vocabulary.get(lowercaseWords ? word.toLowerCase() : word);
+        return index != null ? index : unknownIndex;
+    }
+
+    private static double[] toArray(SimpleMatrix matrix) {
+        int rows = matrix.numRows();
+        int cols = matrix.numCols();
+        double[] data = new double[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                data[r * cols + c] = matrix.get(r, c);
+            }
+        }
+        return data;
+    }
+
+    private static double[] toArray(SimpleTensor tensor) {
+        int sliceSize = tensor.numRows() * tensor.numCols();
+        double[] data = new double[tensor.numSlices() * sliceSize];
+        for (int s = 0; s < tensor.numSlices(); s++) {
+            System.arraycopy(toArray(tensor.getSlice(s)), 0, data, s * sliceSize, sliceSize);
+        }
+        return data;
+    }
+}
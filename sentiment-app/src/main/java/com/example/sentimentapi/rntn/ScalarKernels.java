@@ -0,0 +1,176 @@
+package com.example.sentimentapi.rntn;
+
+/**
+ * Scalar RNTN kernels.
+ *
+ * Every sum accumulates in the same order as the EJML routines CoreNLP uses
+ * (MatrixVectorMult and the reordered row-vector/matrix product), so results
+ * are bit-for-bit identical to the sentiment annotator.
+ */
+final class ScalarKernels implements RntnKernels {
+
+    @Override
+    public void matVec(double[] matrix, int rows, int cols, double[] in, double[] out, int offset) {
+        for (int i = 0; i < rows; i++) {
+            int row = i * cols;
+            double total = matrix[row] * in[0];
+            for (int j = 1; j < cols; j++) {
+                total += matrix[row + j] * in[j];
+            }
+            out[offset + i] = total;
+        }
+    }
+
+    @Override
+    public void bilinear(double[] tensor, int slices, int size, double[] in, double[] rowVector,
+                         double[] out, int offset) {
+        for (int s = 0; s < slices; s++) {
+            out[offset + s] = out[offset + s] + quadraticForm(tensor, s * size * size, size, in, 0, rowVector);
+        }
+    }
+
+    @Override
+    public void matMul(double[] matrix, int rows, int cols, double[] in, int n, double[] out) {
+        for (int i = 0; i < rows; i++) {
+            int row = i * cols;
+            int r = 0;
+            // Four inputs per pass over the matrix row; each keeps its own running sum
+            for (; r + 4 <= n; r += 4) {
+                int i0 = r * cols;
+                int i1 = i0 + cols;
+                int i2 = i1 + cols;
+                int i3 = i2 + cols;
+                double m = matrix[row];
+                double t0 = m * in[i0];
+                double t1 = m * in[i1];
+                double t2 = m * in[i2];
+                double t3 = m * in[i3];
+                for (int j = 1; j < cols; j++) {
+                    m = matrix[row + j];
+                    t0 += m * in[i0 + j];
+                    t1 += m * in[i1 + j];
+                    t2 += m * in[i2 + j];
+                    t3 += m * in[i3 + j];
+                }
+                out[r * rows + i] = t0;
+                out[(r + 1) * rows + i] = t1;
+                out[(r + 2) * rows + i] = t2;
+                out[(r + 3) * rows + i] = t3;
+            }
+            for (; r < n; r++) {
+                int input = r * cols;
+                double total = matrix[row] * in[input];
+                for (int j = 1; j < cols; j++) {
+                    total += matrix[row + j] * in[input + j];
+                }
+                out[r * rows + i] = total;
+            }
+        }
+    }
+
+    @Override
+    public void bilinearBatch(double[] tensor, int slices, int size, double[] in, int inStride, int n,
+                              double[] rowVector, double[] out) {
+        for (int s = 0; s < slices; s++) {
+            int base = s * size * size;
+            int r = 0;
+            for (; r + 4 <= n; r += 4) {
+                quadraticForm4(tensor, base, size, in, r * inStride, inStride, rowVector, out, r * slices + s, slices);
+            }
+            for (; r < n; r++) {
+                int index = r * slices + s;
+                out[index] = out[index] + quadraticForm(tensor, base, size, in, r * inStride, rowVector);
+            }
+        }
+    }
+
+    /**
+     * quadraticForm for four inputs at once, reading each slice row once for all of them.
+     * Each input's sums run in the same order as in quadraticForm.
+     */
+    private static void quadraticForm4(double[] tensor, int base, int size, double[] in, int inOffset, int inStride,
+                                       double[] rowVector, double[] out, int outIndex, int outStride) {
+        int o0 = inOffset;
+        int o1 = o0 + inStride;
+        int o2 = o1 + inStride;
+        int o3 = o2 + inStride;
+        int v1 = size;
+        int v2 = 2 * size;
+        int v3 = 3 * size;
+        double a0 = in[o0];
+        double a1 = in[o1];
+        double a2 = in[o2];
+        double a3 = in[o3];
+        for (int j = 0; j < size; j++) {
+            double t = tensor[base + j];
+            rowVector[j] = a0 * t;
+            rowVector[v1 + j] = a1 * t;
+            rowVector[v2 + j] = a2 * t;
+            rowVector[v3 + j] = a3 * t;
+        }
+        for (int k = 1; k < size; k++) {
+            a0 = in[o0 + k];
+            a1 = in[o1 + k];
+            a2 = in[o2 + k];
+            a3 = in[o3 + k];
+            int row = base + k * size;
+            for (int j = 0; j < size; j++) {
+                double t = tensor[row + j];
+                rowVector[j] += a0 * t;
+                rowVector[v1 + j] += a1 * t;
+                rowVector[v2 + j] += a2 * t;
+                rowVector[v3 + j] += a3 * t;
+            }
+        }
+        double t0 = rowVector[0] * in[o0];
+        double t1 = rowVector[v1] * in[o1];
+        double t2 = rowVector[v2] * in[o2];
+        double t3 = rowVector[v3] * in[o3];
+        for (int j = 1; j < size; j++) {
+            t0 += rowVector[j] * in[o0 + j];
+            t1 += rowVector[v1 + j] * in[o1 + j];
+            t2 += rowVector[v2 + j] * in[o2 + j];
+            t3 += rowVector[v3 + j] * in[o3 + j];
+        }
+        out[outIndex] = out[outIndex] + t0;
+        out[outIndex + outStride] = out[outIndex + outStride] + t1;
+        out[outIndex + 2 * outStride] = out[outIndex + 2 * outStride] + t2;
+        out[outIndex + 3 * outStride] = out[outIndex + 3 * outStride] + t3;
+    }
+
+    /**
+     * in^T * slice * in, computing the row vector in^T * slice first as EJML does.
+     */
+    private static double quadraticForm(double[] tensor, int base, int size, double[] in, int inOffset,
+                                        double[] rowVector) {
+        double a = in[inOffset];
+        for (int j = 0; j < size; j++) {
+            rowVector[j] = a * tensor[base + j];
+        }
+        for (int k = 1; k < size; k++) {
+            a = in[inOffset + k];
+            int row = base + k * size;
+            for (int j = 0; j < size; j++) {
+                rowVector[j] += a * tensor[row + j];
+            }
+        }
+        double total = rowVector[0] * in[inOffset];
+        for (int j = 1; j < size; j++) {
+            total += rowVector[j] * in[inOffset + j];
+        }
+        return total;
+    }
+
+    @Override
+    public void softmax(double[] values, int n) {
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.exp(values[i]);
+            sum += values[i];
+        }
+        double scale = 1.0 / sum;
+        for (int i = 0; i < n; i++) {
+            values[i] *= scale;
+        }
+    }
+}
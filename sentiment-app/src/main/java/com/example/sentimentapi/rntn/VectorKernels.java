@@ -0,0 +1,180 @@
+package com.example.sentimentapi.rntn;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * RNTN kernels vectorized with the incubating Java Vector API.
+ *
+ * Lanes accumulate partial sums that are reduced at the end, so results can differ
+ * from the scalar kernels in the last bits; predicted classes are unaffected in practice.
+ * Only instantiated through {@link RntnKernels#select(boolean)}.
+ */
+final class VectorKernels implements RntnKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final RntnKernels scalar = new ScalarKernels();
+
+    @Override
+    public void matVec(double[] matrix, int rows, int cols, double[] in, double[] out, int offset) {
+        for (int i = 0; i < rows; i++) {
+            out[offset + i] = dot(matrix, i * cols, in, 0, cols);
+        }
+    }
+
+    @Override
+    public void bilinear(double[] tensor, int slices, int size, double[] in, double[] rowVector,
+                         double[] out, int offset) {
+        for (int s = 0; s < slices; s++) {
+            out[offset + s] += quadraticForm(tensor, s * size * size, size, in, 0, rowVector);
+        }
+    }
+
+    @Override
+    public void matMul(double[] matrix, int rows, int cols, double[] in, int n, double[] out) {
+        int bound = SPECIES.loopBound(cols);
+        for (int i = 0; i < rows; i++) {
+            int row = i * cols;
+            int r = 0;
+            // Four inputs per pass over the matrix row
+            for (; r + 4 <= n; r += 4) {
+                int i0 = r * cols;
+                int i1 = i0 + cols;
+                int i2 = i1 + cols;
+                int i3 = i2 + cols;
+                DoubleVector acc0 = DoubleVector.zero(SPECIES);
+                DoubleVector acc1 = DoubleVector.zero(SPECIES);
+                DoubleVector acc2 = DoubleVector.zero(SPECIES);
+                DoubleVector acc3 = DoubleVector.zero(SPECIES);
+                int j = 0;
+                for (; j < bound; j += SPECIES.length()) {
+                    DoubleVector m = DoubleVector.fromArray(SPECIES, matrix, row + j);
+                    acc0 = m.fma(DoubleVector.fromArray(SPECIES, in, i0 + j), acc0);
+                    acc1 = m.fma(DoubleVector.fromArray(SPECIES, in, i1 + j), acc1);
+                    acc2 = m.fma(DoubleVector.fromArray(SPECIES, in, i2 + j), acc2);
+                    acc3 = m.fma(DoubleVector.fromArray(SPECIES, in, i3 + j), acc3);
+                }
+                double t0 = acc0.reduceLanes(VectorOperators.ADD);
+                double t1 = acc1.reduceLanes(VectorOperators.ADD);
+                double t2 = acc2.reduceLanes(VectorOperators.ADD);
+                double t3 = acc3.reduceLanes(VectorOperators.ADD);
+                for (; j < cols; j++) {
+                    double m = matrix[row + j];
+                    t0 += m * in[i0 + j];
+                    t1 += m * in[i1 + j];
+                    t2 += m * in[i2 + j];
+                    t3 += m * in[i3 + j];
+                }
+                out[r * rows + i] = t0;
+                out[(r + 1) * rows + i] = t1;
+                out[(r + 2) * rows + i] = t2;
+                out[(r + 3) * rows + i] = t3;
+            }
+            for (; r < n; r++) {
+                out[r * rows + i] = dot(matrix, row, in, r * cols, cols);
+            }
+        }
+    }
+
+    @Override
+    public void bilinearBatch(double[] tensor, int slices, int size, double[] in, int inStride, int n,
+                              double[] rowVector, double[] out) {
+        for (int s = 0; s < slices; s++) {
+            int base = s * size * size;
+            int r = 0;
+            for (; r + 4 <= n; r += 4) {
+                quadraticForm4(tensor, base, size, in, r * inStride, inStride, rowVector);
+                for (int q = 0; q < 4; q++) {
+                    out[(r + q) * slices + s] += dot(rowVector, q * size, in, (r + q) * inStride, size);
+                }
+            }
+            for (; r < n; r++) {
+                out[r * slices + s] += quadraticForm(tensor, base, size, in, r * inStride, rowVector);
+            }
+        }
+    }
+
+    /**
+     * Fills four row vectors in^T * slice, reading each slice row once for all four inputs.
+     */
+    private static void quadraticForm4(double[] tensor, int base, int size, double[] in, int inOffset,
+                                       int inStride, double[] rowVector) {
+        int bound = SPECIES.loopBound(size);
+        Arrays.fill(rowVector, 0, 4 * size, 0.0);
+        for (int k = 0; k < size; k++) {
+            DoubleVector b0 = DoubleVector.broadcast(SPECIES, in[inOffset + k]);
+            DoubleVector b1 = DoubleVector.broadcast(SPECIES, in[inOffset + inStride + k]);
+            DoubleVector b2 = DoubleVector.broadcast(SPECIES, in[inOffset + 2 * inStride + k]);
+            DoubleVector b3 = DoubleVector.broadcast(SPECIES, in[inOffset + 3 * inStride + k]);
+            int row = base + k * size;
+            int j = 0;
+            for (; j < bound; j += SPECIES.length()) {
+                DoubleVector t = DoubleVector.fromArray(SPECIES, tensor, row + j);
+                t.fma(b0, DoubleVector.fromArray(SPECIES, rowVector, j)).intoArray(rowVector, j);
+                t.fma(b1, DoubleVector.fromArray(SPECIES, rowVector, size + j)).intoArray(rowVector, size + j);
+                t.fma(b2, DoubleVector.fromArray(SPECIES, rowVector, 2 * size + j)).intoArray(rowVector, 2 * size + j);
+                t.fma(b3, DoubleVector.fromArray(SPECIES, rowVector, 3 * size + j)).intoArray(rowVector, 3 * size + j);
+            }
+            for (; j < size; j++) {
+                double t = tensor[row + j];
+                rowVector[j] += in[inOffset + k] * t;
+                rowVector[size + j] += in[inOffset + inStride + k] * t;
+                rowVector[2 * size + j] += in[inOffset + 2 * inStride + k] * t;
+                rowVector[3 * size + j] += in[inOffset + 3 * inStride + k] * t;
+            }
+        }
+    }
+
+    private static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            acc = DoubleVector.fromArray(SPECIES, a, aOffset + j)
+                    .fma(DoubleVector.fromArray(SPECIES, b, bOffset + j), acc);
+        }
+        double total = acc.reduceLanes(VectorOperators.ADD);
+        for (; j < length; j++) {
+            total += a[aOffset + j] * b[bOffset + j];
+        }
+        return total;
+    }
+
+    /**
+     * in^T * slice * in, accumulating the row vector in^T * slice one slice row at a time.
+     */
+    private static double quadraticForm(double[] tensor, int base, int size, double[] in, int inOffset,
+                                        double[] rowVector) {
+        int bound = SPECIES.loopBound(size);
+        Arrays.fill(rowVector, 0, size, 0.0);
+        for (int k = 0; k < size; k++) {
+            double a = in[inOffset + k];
+            DoubleVector broadcast = DoubleVector.broadcast(SPECIES, a);
+            int row = base + k * size;
+            int j = 0;
+            for (; j < bound; j += SPECIES.length()) {
+                DoubleVector r = DoubleVector.fromArray(SPECIES, rowVector, j);
+                DoubleVector.fromArray(SPECIES, tensor, row + j).fma(broadcast, r).intoArray(rowVector, j);
+            }
+            for (; j < size; j++) {
+                rowVector[j] += a * tensor[row + j];
+            }
+        }
+        return dot(rowVector, 0, in, inOffset, size);
+    }
+
+    @Override
+    public void softmax(double[] values, int n) {
+        // Five classes: not worth a vector loop
+        scalar.softmax(values, n);
+    }
+
+    @Override
+    public String toString() {
+        return SPECIES.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.sentimentapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limit on concurrent single-text analyses, with load shedding.
+ *
+ * The limit follows TCP Vegas. Every {@value #SAMPLE_WINDOW} completions, the
+ * number of queued requests is estimated as {@code limit * (1 - noLoadRtt / rtt)}.
+ * Here rtt is the mean latency of the window and noLoadRtt the same latency without
+ * the wait for an inference thread, so texts of different lengths do not skew the
+ * estimate. Below alpha = 3 log10(limit) queued requests the limit grows by
+ * log10(limit). Above beta = 6 log10(limit) it drops by half the excess over alpha.
+ * The limit does not grow while less than half of it is used. Requests beyond the
+ * limit fail at once with {@link OverloadedException} rather than queueing. Queueing
+ * is only visible with the inference bulkhead; without it the limit stays between
+ * its bounds.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int SAMPLE_WINDOW = 10;
+
+    private final ConcurrencyLimitProperties properties;
+    private final InferenceExecutor inferenceExecutor;
+    private final Counter shed;
+
+    private int inFlight;
+    private double limit;
+    private long windowRttNanos;
+    private long windowWaitNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties, InferenceExecutor inferenceExecutor,
+                                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.inferenceExecutor = inferenceExecutor;
+        this.limit = properties.initialLimit();
+        this.shed = Counter.builder("sentiment.limiter.shed")
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.limiter.limit", this, AdaptiveConcurrencyLimiter::currentLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.limiter.inflight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Analyses currently admitted by the concurrency limiter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the work if the limit allows it and feeds its latency back into the limit.
+     *
+     * @param work The analysis to run
+     * @return The result of the work
+     * @throws OverloadedException if the limit is reached
+     */
+    public <T> T call(Supplier<T> work) {
+        if (!properties.enabled()) {
+            return work.get();
+        }
+        acquire();
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            release(System.nanoTime() - start, inferenceExecutor.lastWaitNanos());
+        }
+    }
+
+    public synchronized int currentLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private synchronized void acquire() {
+        if (inFlight >= (int) limit) {
+            shed.increment();
+            throw new OverloadedException("Concurrency limit of " + (int) limit + " reached",
+                    properties.retryAfter());
+        }
+        inFlight++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+    }
+
+    private synchronized void release(long rttNanos, long waitNanos) {
+        inFlight--;
+        windowRttNanos += rttNanos;
+        windowWaitNanos += Math.min(waitNanos, rttNanos);
+        if (++windowSamples < SAMPLE_WINDOW) {
+            return;
+        }
+        double queued = windowRttNanos > 0 ? limit * windowWaitNanos / windowRttNanos : 0;
+        int maxInFlight = windowMaxInFlight;
+        windowRttNanos = 0;
+        windowWaitNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = inFlight;
+
+        double log = Math.max(1, Math.log10(limit));
+        double alpha = 3 * log;
+        double beta = 6 * log;
+        if (queued > beta) {
+            limit -= (queued - alpha) / 2;
+        } else if (queued < alpha && maxInFlight >= limit / 2) {
+            // Only a limit that is actually being used tells anything about capacity
+            limit += log;
+        }
+        limit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(), limit));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for batch requests.
+ *
+ * @param maxTexts Most texts accepted in one batch request
+ * @param parallelism Most texts of one batch parsed at once; 0 uses half the inference threads
+ * @param timeout How long a batch request may run before it is cancelled
+ */
+@ConfigurationProperties(prefix = "sentiment.batch")
+public record BatchProperties(
+        @DefaultValue("10000") int maxTexts,
+        @DefaultValue("0") int parallelism,
+        @DefaultValue("2m") Duration timeout) {
+
+    /**
+     * Resolves the configured parallelism, leaving the other inference threads free
+     * for single-text requests and other batches.
+     */
+    public int effectiveParallelism(int inferenceThreads) {
+        return parallelism > 0 ? parallelism : Math.max(1, (inferenceThreads + 1) / 2);
+    }
+}
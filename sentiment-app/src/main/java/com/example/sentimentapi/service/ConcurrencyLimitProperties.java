@@ -0,0 +1,24 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the adaptive concurrency limit on single-text analysis.
+ *
+ * @param enabled Whether requests beyond the limit are shed
+ * @param initialLimit Limit before any latency has been measured
+ * @param minLimit Lowest limit
+ * @param maxLimit Highest limit
+ * @param retryAfter Retry-After sent with shed requests
+ */
+@ConfigurationProperties(prefix = "sentiment.limiter")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("1") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("1s") Duration retryAfter) {
+}
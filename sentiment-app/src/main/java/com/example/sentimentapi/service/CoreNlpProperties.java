@@ -0,0 +1,53 @@
+package com.example.sentimentapi.service;
+
+import java.util.Properties;
+
+/**
+ * Builds the Stanford CoreNLP properties for the sentiment pipeline.
+ */
+public final class CoreNlpProperties {
+
+    private CoreNlpProperties() {
+    }
+
+    /**
+     * Properties for the segmentation stage (tokenize, ssplit).
+     */
+    public static Properties forSegmenter() {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize, ssplit");
+        return props;
+    }
+
+    /**
+     * Properties for the annotation stage that runs on already segmented sentences.
+     * 
+     * @param parser The parser configuration
+     * @param guard Per-sentence length and time limits applied inside the parser
+     * @param rntn Sentiment model settings; the flat evaluator runs outside the pipeline
+     * @return Properties for a [pos,] parse[, sentiment] pipeline
+     */
+    public static Properties forAnnotator(ParserProperties parser, SentenceGuardProperties guard,
+                                          RntnProperties rntn) {
+        Properties props = new Properties();
+        String annotators = parser.engine().requiresTagger() ? "pos, parse" : "parse";
+        if (rntn.evaluator() == RntnProperties.Evaluator.CORENLP) {
+            annotators += ", sentiment";
+            props.setProperty("sentiment.model", rntn.model());
+        }
+        props.setProperty("annotators", annotators);
+        // Tokens and sentences come from the segmentation stage
+        props.setProperty("enforceRequirements", "false");
+        props.setProperty("parse.model", parser.effectiveModel());
+        // The parse annotator binarizes its output once; the sentiment model consumes it as-is
+        props.setProperty("parse.binaryTrees", "true");
+        // Dependency graphs are not used for sentiment
+        props.setProperty("parse.buildgraphs", "false");
+        // Sentences over either limit get a flat tree, which the sentiment model scores in linear time
+        props.setProperty("parse.maxlen", String.valueOf(guard.maxTokens()));
+        if (!guard.parseTimeBudget().isZero()) {
+            props.setProperty("parse.maxtime", String.valueOf(guard.parseTimeBudget().toMillis()));
+        }
+        return props;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.sentimentapi.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the container CPU quota from the cgroup filesystem.
+ * Falls back to the JVM's processor count when no quota is set.
+ */
+public final class CpuQuota {
+
+    private static final Path CGROUP_V2_CPU_MAX = Path.of("/sys/fs/cgroup/cpu.max");
+    private static final Path CGROUP_V1_QUOTA = Path.of("/sys/fs/cgroup/cpu/cpu.cfs_quota_us");
+    private static final Path CGROUP_V1_PERIOD = Path.of("/sys/fs/cgroup/cpu/cpu.cfs_period_us");
+
+    private CpuQuota() {
+    }
+
+    /**
+     * Number of CPUs this process may keep busy, rounded up and never less than one.
+     * 
+     * @return CPU count derived from the cgroup quota, capped at the available processors
+     */
+    public static int availableCpus() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        double quota = readQuota();
+        if (quota <= 0) {
+            return processors;
+        }
+        return Math.max(1, Math.min(processors, (int) Math.ceil(quota)));
+    }
+
+    private static double readQuota() {
+        try {
+            if (Files.isReadable(CGROUP_V2_CPU_MAX)) {
+                // Format: "<quota> <period>" or "max <period>"
+                String[] parts = Files.readString(CGROUP_V2_CPU_MAX).trim().split("\\s+");
+                if (parts.length == 2 && !"max".equals(parts[0])) {
+                    return Double.parseDouble(parts[0]) / Double.parseDouble(parts[1]);
+                }
+                return -1;
+            }
+            if (Files.isReadable(CGROUP_V1_QUOTA) && Files.isReadable(CGROUP_V1_PERIOD)) {
+                long quota = Long.parseLong(Files.readString(CGROUP_V1_QUOTA).trim());
+                long period = Long.parseLong(Files.readString(CGROUP_V1_PERIOD).trim());
+                if (quota > 0 && period > 0) {
+                    return (double) quota / period;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not running under a readable cgroup; use the processor count
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.sentimentapi.service;
+
+import java.time.Duration;
+
+/**
+ * Point in time after which nobody waits for the result of a request any more.
+ *
+ * Analysis checks its deadline before it leaves a queue, after it checks out a
+ * pipeline worker and between sentences, and gives up with
+ * {@link DeadlineExceededException} once the deadline has passed or was cancelled,
+ * so no CPU is spent on results the client will not read.
+ */
+public final class Deadline {
+
+    /**
+     * No deadline: the work always runs to completion.
+     */
+    public static final Deadline NONE = new Deadline(0, false);
+
+    private final long nanoTime;
+    private final boolean timed;
+    private volatile boolean cancelled;
+
+    private Deadline(long nanoTime, boolean timed) {
+        this.nanoTime = nanoTime;
+        this.timed = timed;
+    }
+
+    /**
+     * Deadline the given time from now, which can also be cancelled before then.
+     *
+     * @param timeout Time allowed; zero means only cancelling ends it
+     */
+    public static Deadline after(Duration timeout) {
+        return timeout.isZero()
+                ? new Deadline(0, false)
+                : new Deadline(System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    /**
+     * Whether the work can end early, by time or by cancelling.
+     */
+    public boolean isBounded() {
+        return this != NONE;
+    }
+
+    public boolean expired() {
+        return cancelled || timed && System.nanoTime() - nanoTime >= 0;
+    }
+
+    /**
+     * Ends the deadline now, for example because the client went away. Work holding it
+     * stops at its next check.
+     *
+     * @throws UnsupportedOperationException on {@link #NONE}
+     */
+    public void cancel() {
+        if (this == NONE) {
+            throw new UnsupportedOperationException("Deadline.NONE cannot be cancelled");
+        }
+        cancelled = true;
+    }
+
+    /**
+     * Time left, or Long.MAX_VALUE without a time limit.
+     */
+    public long remainingNanos() {
+        if (cancelled) {
+            return 0;
+        }
+        return timed ? Math.max(0, nanoTime - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Shortens a wait so that it ends no later than the deadline.
+     */
+    public long boundNanos(Duration timeout) {
+        return Math.min(timeout.toNanos(), remainingNanos());
+    }
+
+    /**
+     * @throws DeadlineExceededException if the deadline has passed or was cancelled
+     */
+    public void check() {
+        if (cancelled) {
+            throw new DeadlineExceededException("Request cancelled");
+        }
+        if (expired()) {
+            throw new DeadlineExceededException("Request deadline passed");
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.sentimentapi.service;
+
+/**
+ * Thrown when analysis is abandoned because the request deadline has passed or was
+ * cancelled. Retrying does not help, so callers that retry a busy pool must not treat it
+ * like {@link PipelineUnavailableException}.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
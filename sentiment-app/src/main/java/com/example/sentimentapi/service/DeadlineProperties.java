@@ -0,0 +1,16 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for request deadlines.
+ *
+ * @param defaultTimeout Deadline of single-text requests without a timeout header; 0 disables it
+ */
+@ConfigurationProperties(prefix = "sentiment.deadline")
+public record DeadlineProperties(
+        @DefaultValue("10s") Duration defaultTimeout) {
+}
@@ -0,0 +1,426 @@
+package com.example.sentimentapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead for CPU-bound inference work, with one priority lane for interactive
+ * requests and one for bulk work.
+ *
+ * It has one platform thread per pipeline worker: more threads would only wait for a
+ * worker. Tasks wait in the queue of their {@link Lane} and start only when a thread is
+ * free, so the CPU is never shared by more inference tasks than it has cores. A free
+ * thread takes the oldest interactive task first, and bulk tasks run on the capacity
+ * left over. Within a lane, tasks run in the order of their enqueue time plus their
+ * estimated cost: interactive tasks have no cost and run first-come, first-served,
+ * while bulk tasks run shortest job first, and a large job waits no longer than its
+ * own estimated cost. Bulk work that loops over many texts checks {@link #shouldYield}
+ * between them and hands its thread over to interactive tasks, or to bulk tasks that
+ * are due before its remaining work would end. Each lane occupies at
+ * most its share of the threads and queues at most its capacity. Callers, typically
+ * virtual request threads, wait for their task to start for up to the pool checkout
+ * timeout or their {@link Deadline} and are then rejected with
+ * {@link PipelineUnavailableException}. Work submitted from an inference thread runs
+ * inline, so nested calls cannot deadlock. A task that waits for other tasks hands its
+ * slot over for the wait with {@link #block}; an extra thread runs the task started in
+ * its place.
+ */
+@Component
+public class InferenceExecutor {
+
+    /**
+     * Priority class of inference work, highest first.
+     */
+    public enum Lane {
+        /** Latency-sensitive single-text requests. */
+        INTERACTIVE,
+        /** Batches, streams and jobs. */
+        BULK
+    }
+
+    private static final ThreadLocal<Boolean> INFERENCE_THREAD = ThreadLocal.withInitial(() -> false);
+
+    private final int threads;
+    private final Duration admissionTimeout;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final EnumMap<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter yields;
+    private final ThreadLocal<Long> lastWaitNanos = ThreadLocal.withInitial(() -> 0L);
+    private final ThreadLocal<LaneState> currentLane = new ThreadLocal<>();
+
+    private int running;
+    private int blocked;
+    private long sequence;
+
+    public InferenceExecutor(PipelinePoolProperties poolProperties, InferenceProperties inferenceProperties,
+                             MeterRegistry meterRegistry) {
+        this.threads = poolProperties.effectiveSize();
+        this.admissionTimeout = poolProperties.checkoutTimeout();
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(() -> {
+                        INFERENCE_THREAD.set(true);
+                        runnable.run();
+                    }, "inference-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "sentiment.inference");
+
+        lanes.put(Lane.INTERACTIVE, new LaneState(Lane.INTERACTIVE, inferenceProperties.interactive(), meterRegistry));
+        lanes.put(Lane.BULK, new LaneState(Lane.BULK, inferenceProperties.bulk(), meterRegistry));
+        this.yields = Counter.builder("sentiment.inference.yields")
+                .description("Times bulk work handed its inference thread to waiting work that comes first")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the work on an inference thread and waits for its result.
+     *
+     * @param work CPU-bound work
+     * @param deadline Deadline of the request
+     * @param lane Lane the work waits in
+     * @param costNanos Estimated run time of the work, which orders bulk tasks
+     * @return The result of the work
+     * @throws PipelineUnavailableException if the lane's queue is full or no inference thread became free within the timeout
+     * @throws DeadlineExceededException if no inference thread became free before the deadline
+     */
+    public <T> T call(Supplier<T> work, Deadline deadline, Lane lane, long costNanos) {
+        if (INFERENCE_THREAD.get()) {
+            lastWaitNanos.set(0L);
+            return work.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Task task = enqueue(lane, costNanos, () -> {
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        awaitStart(task, deadline);
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Queues the command in the lane without waiting for it to start.
+     *
+     * @param costNanos Estimated run time of the command, which orders bulk tasks
+     * @throws PipelineUnavailableException if the lane's queue is full
+     */
+    public void submit(Runnable command, Lane lane, long costNanos) {
+        enqueue(lane, costNanos, command);
+    }
+
+    /**
+     * Runs the command in the lane if a thread is free for it right now.
+     *
+     * @return false if the lane has no free thread or other tasks are waiting in it
+     */
+    public boolean tryStart(Runnable command, Lane lane) {
+        LaneState state = lanes.get(lane);
+        lock.lock();
+        try {
+            if (!state.queue.isEmpty() || !canStart(state)) {
+                return false;
+            }
+            start(new Task(state, command, 0, 0));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a task of the lane should hand its thread to waiting tasks that come
+     * first: interactive tasks, or bulk tasks due before the remaining work would be if
+     * it were queued now. Bulk work that loops over many items checks this between
+     * items and, if so, queues its remainder and returns.
+     *
+     * @param remainingNanos Estimated run time of the remaining work
+     */
+    public boolean shouldYield(Lane lane, long remainingNanos) {
+        if (lane != Lane.BULK) {
+            return false;
+        }
+        LaneState interactive = lanes.get(Lane.INTERACTIVE);
+        LaneState bulk = lanes.get(Lane.BULK);
+        lock.lock();
+        try {
+            boolean interactiveWaiting = !interactive.queue.isEmpty()
+                    && interactive.running < interactive.maxThreads;
+            Task next = bulk.queue.peek();
+            boolean bulkDue = next != null && next.dueNanos - (System.nanoTime() + remainingNanos) < 0;
+            if (!interactiveWaiting && !bulkDue) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        yields.increment();
+        return true;
+    }
+
+    /**
+     * Runs a blocking wait of the current inference task without holding its slot, so
+     * another task can start in the meantime on an extra thread. The task takes its slot
+     * back when the wait ends, even if that briefly puts more tasks on the CPU than it has
+     * cores; no new task starts until they are back under the limit. Outside inference
+     * tasks the wait simply runs.
+     *
+     * @param wait Waits for work done by other tasks, without using the CPU
+     * @return The result of the wait
+     */
+    public <T> T block(Supplier<T> wait) {
+        LaneState state = currentLane.get();
+        if (state == null) {
+            return wait.get();
+        }
+        lock.lock();
+        try {
+            running--;
+            state.running--;
+            blocked++;
+            pool.setMaximumPoolSize(threads + blocked);
+            pool.setCorePoolSize(threads + blocked);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return wait.get();
+        } finally {
+            lock.lock();
+            try {
+                running++;
+                state.running++;
+                blocked--;
+                pool.setCorePoolSize(threads + blocked);
+                pool.setMaximumPoolSize(threads + blocked);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * How long the calling thread last waited for admission, for latency accounting.
+     */
+    public long lastWaitNanos() {
+        return lastWaitNanos.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Task enqueue(Lane lane, long costNanos, Runnable command) {
+        LaneState state = lanes.get(lane);
+        lock.lock();
+        try {
+            Task task = new Task(state, command, lane == Lane.BULK ? costNanos : 0, sequence++);
+            if (state.queue.size() >= state.queueCapacity) {
+                state.rejections.increment();
+                throw new PipelineUnavailableException("The " + state.name + " inference queue is full");
+            }
+            state.queue.add(task);
+            dispatch();
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitStart(Task task, Deadline deadline) {
+        long start = System.nanoTime();
+        try {
+            task.started.get(deadline.boundNanos(admissionTimeout), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (withdraw(task)) {
+                deadline.check();
+                task.lane.rejections.increment();
+                throw new PipelineUnavailableException("No inference thread became free within " + admissionTimeout);
+            }
+        } catch (InterruptedException e) {
+            if (withdraw(task)) {
+                Thread.currentThread().interrupt();
+                throw new PipelineUnavailableException("Interrupted while waiting for an inference thread");
+            }
+            // The task has started; keep the interrupt for whoever waits next
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lastWaitNanos.set(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Removes a task that has not started yet from its queue.
+     *
+     * @return false if the task has already started
+     */
+    private boolean withdraw(Task task) {
+        lock.lock();
+        try {
+            return !task.started.isDone() && task.lane.queue.remove(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts waiting tasks while threads are free, higher lanes first. Called with the lock held.
+     */
+    private void dispatch() {
+        if (executor.isShutdown()) {
+            // Tasks still queued at shutdown are dropped; their callers time out waiting
+            return;
+        }
+        for (LaneState state : lanes.values()) {
+            while (!state.queue.isEmpty() && canStart(state)) {
+                start(state.queue.poll());
+            }
+        }
+    }
+
+    private boolean canStart(LaneState state) {
+        return running < threads && state.running < state.maxThreads;
+    }
+
+    private void start(Task task) {
+        LaneState state = task.lane;
+        running++;
+        state.running++;
+        state.waitTimer.record(System.nanoTime() - task.enqueuedNanos, TimeUnit.NANOSECONDS);
+        task.started.complete(null);
+        executor.execute(() -> {
+            currentLane.set(state);
+            try {
+                task.command.run();
+            } finally {
+                currentLane.remove();
+                finished(state);
+            }
+        });
+    }
+
+    private void finished(LaneState state) {
+        lock.lock();
+        try {
+            running--;
+            state.running--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int waiting(LaneState state) {
+        lock.lock();
+        try {
+            return state.queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int active(LaneState state) {
+        lock.lock();
+        try {
+            return state.running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue, share and meters of one lane; counts are guarded by the executor's lock.
+     */
+    private final class LaneState {
+        private final String name;
+        private final int maxThreads;
+        private final int queueCapacity;
+        private final PriorityQueue<Task> queue = new PriorityQueue<>(Task.ORDER);
+        private final Timer waitTimer;
+        private final Counter rejections;
+        private int running;
+
+        private LaneState(Lane lane, InferenceProperties.LaneProperties properties, MeterRegistry meterRegistry) {
+            this.name = lane.name().toLowerCase(Locale.ROOT);
+            this.maxThreads = properties.maxThreads(threads);
+            this.queueCapacity = properties.queueCapacity();
+            this.waitTimer = Timer.builder("sentiment.inference.wait")
+                    .description("Time tasks spent waiting for an inference thread")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            this.rejections = Counter.builder("sentiment.inference.rejections")
+                    .description("Tasks rejected because their lane's queue was full or no inference thread became free in time")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            Gauge.builder("sentiment.inference.waiting", this, InferenceExecutor.this::waiting)
+                    .description("Tasks waiting for an inference thread")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            Gauge.builder("sentiment.inference.active", this, InferenceExecutor.this::active)
+                    .description("Tasks running on inference threads")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static final class Task {
+        // Earliest due first, then first queued; due times are compared as nanoTime differences
+        private static final Comparator<Task> ORDER = (a, b) -> a.dueNanos != b.dueNanos
+                ? Long.signum(a.dueNanos - b.dueNanos)
+                : Long.compare(a.sequence, b.sequence);
+
+        private final LaneState lane;
+        private final Runnable command;
+        private final long enqueuedNanos = System.nanoTime();
+        private final long dueNanos;
+        private final long sequence;
+        private final CompletableFuture<Void> started = new CompletableFuture<>();
+
+        private Task(LaneState lane, Runnable command, long costNanos, long sequence) {
+            this.lane = lane;
+            this.command = command;
+            this.dueNanos = enqueuedNanos + costNanos;
+            this.sequence = sequence;
+        }
+    }
+}
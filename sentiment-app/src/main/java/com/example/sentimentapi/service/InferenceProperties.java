@@ -0,0 +1,52 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration for where NLP work runs.
+ *
+ * @param bulkhead Hand single-text analysis from request threads to the inference executor,
+ *                 admitting at most one task per inference thread; false runs it on the
+ *                 request thread
+ * @param interactive Lane of single-text requests
+ * @param bulk Lane of batches, streams and jobs
+ * @param documentParallelism Most inference threads that parse the sentences of one
+ *                            interactive document at once; 0 uses all of them and 1 parses
+ *                            each document on a single thread
+ * @param minParallelSentences Fewest uncached sentences a document needs before its
+ *                             sentences are parsed in parallel
+ */
+@ConfigurationProperties(prefix = "sentiment.inference")
+public record InferenceProperties(
+        @DefaultValue("true") boolean bulkhead,
+        @DefaultValue LaneProperties interactive,
+        @DefaultValue LaneProperties bulk,
+        @DefaultValue("0") int documentParallelism,
+        @DefaultValue("4") int minParallelSentences) {
+
+    /**
+     * Resolves the document parallelism against the number of inference threads.
+     */
+    public int effectiveDocumentParallelism(int inferenceThreads) {
+        return documentParallelism > 0 ? Math.min(documentParallelism, inferenceThreads) : inferenceThreads;
+    }
+
+    /**
+     * Configuration of one execution lane.
+     *
+     * @param share Fraction of the inference threads the lane may occupy at once
+     * @param queueCapacity Most tasks waiting in the lane; more are rejected at once
+     */
+    public record LaneProperties(
+            @DefaultValue("1.0") double share,
+            @DefaultValue("1000") int queueCapacity) {
+
+        /**
+         * Resolves the share to a number of threads, at least one.
+         */
+        public int maxThreads(int threads) {
+            return Math.max(1, Math.min(threads, (int) Math.ceil(share * threads)));
+        }
+    }
+}
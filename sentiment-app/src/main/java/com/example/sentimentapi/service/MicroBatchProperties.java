@@ -0,0 +1,20 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for micro-batching the RNTN scoring of concurrent single-text requests.
+ *
+ * @param enabled Whether concurrent requests are scored together (flat evaluator only)
+ * @param maxBatchSize Most requests scored in one batch
+ * @param maxWindow Longest time a batch waits for more requests; the actual window adapts below it
+ */
+@ConfigurationProperties(prefix = "sentiment.micro-batch")
+public record MicroBatchProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("32") int maxBatchSize,
+        @DefaultValue("5ms") Duration maxWindow) {
+}
@@ -0,0 +1,287 @@
+package com.example.sentimentapi.service;
+
+import edu.stanford.nlp.util.CoreMap;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Scores the sentences of concurrent single-text requests in shared RNTN batches.
+ *
+ * Every request parses its own text on a pooled worker as before, then joins the open
+ * batch. The request that opened the batch leads it: it waits for requests still
+ * parsing, and then scores all sentences in one {@link SentenceScorer#scoreAll} pass. A
+ * lone request therefore never waits. The wait is bounded by the window and by what
+ * batching is expected to save: the measured per-sentence scoring time of lone
+ * requests minus that of batched ones, for the sentences of the requests still
+ * parsing. Waiting requests hand their inference slot over with
+ * {@link InferenceExecutor#block}. The window follows an AIMD rule on the delay the
+ * batcher adds, the time from joining a batch to having scores minus the measured time
+ * to score the request alone: it is halved when that is positive on average and grows
+ * by a tenth of the maximum otherwise.
+ */
+@Component
+public class MicroBatcher {
+
+    private static final int ADJUST_EVERY = 50;
+    private static final double SMOOTHING = 0.1;
+
+    private final SentenceScorer sentenceScorer;
+    private final InferenceExecutor inferenceExecutor;
+    private final MicroBatchProperties properties;
+    private final boolean enabled;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final DistributionSummary batchSizes;
+
+    // Guarded by lock
+    private Batch open;
+    private int parsing;
+    private double soloNanosPerSentence = Double.NaN;
+    private double batchedNanosPerSentence = Double.NaN;
+    private double sentencesPerRequest = 1;
+    private int requests;
+    private int delaySamples;
+    private long addedDelayNanos;
+
+    private volatile long windowNanos;
+
+    public MicroBatcher(SentenceScorer sentenceScorer, InferenceExecutor inferenceExecutor,
+                        MicroBatchProperties properties, RntnProperties rntnProperties, MeterRegistry meterRegistry) {
+        this.sentenceScorer = sentenceScorer;
+        this.inferenceExecutor = inferenceExecutor;
+        this.properties = properties;
+        // Only the flat evaluator scores a batch in one pass
+        this.enabled = properties.enabled() && rntnProperties.evaluator() == RntnProperties.Evaluator.FLAT;
+        this.windowNanos = properties.maxWindow().toNanos();
+        this.batchSizes = DistributionSummary.builder("sentiment.microbatch.size")
+                .description("Requests scored together in one micro-batch")
+                .register(meterRegistry);
+        TimeGauge.builder("sentiment.microbatch.window", this, TimeUnit.NANOSECONDS, b -> b.windowNanos)
+                .description("Current time a micro-batch waits for more requests")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parses a text with the given function and scores its sentences, batched with
+     * other requests when micro-batching is enabled.
+     *
+     * @param parse Parses the text into annotated sentences
+     * @return The parsed sentences and one score per sentence
+     */
+    public Scored parseAndScore(Supplier<List<CoreMap>> parse) {
+        if (!enabled) {
+            List<CoreMap> sentences = parse.get();
+            return new Scored(sentences, sentences.stream().map(sentenceScorer::score).toList());
+        }
+        lock.lock();
+        try {
+            parsing++;
+        } finally {
+            lock.unlock();
+        }
+        List<CoreMap> sentences;
+        try {
+            sentences = parse.get();
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                parsing--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        Request request = new Request(sentences, System.nanoTime());
+        Batch batch = join(request);
+        if (batch != null) {
+            run(batch);
+        }
+        try {
+            List<SentenceScore> scores = request.scores.isDone()
+                    ? request.scores.join()
+                    : inferenceExecutor.block(request.scores::join);
+            return new Scored(sentences, scores);
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Adds a parsed request to the open batch.
+     *
+     * @return The batch to run if this request leads it, otherwise null
+     */
+    private Batch join(Request request) {
+        Batch batch;
+        lock.lock();
+        try {
+            parsing--;
+            boolean leader = open == null;
+            if (leader) {
+                open = new Batch();
+            }
+            batch = open;
+            batch.requests.add(request);
+            if (batch.requests.size() >= properties.maxBatchSize()) {
+                open = null;
+            }
+            changed.signalAll();
+            if (!leader) {
+                return null;
+            }
+            if (open != batch || waitBudget() <= 0) {
+                open = null;
+                return batch;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return inferenceExecutor.block(() -> fill(batch));
+    }
+
+    /**
+     * Waits while the requests still parsing are expected to save more than the batch
+     * has waited, and closes the batch.
+     */
+    private Batch fill(Batch batch) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            batch.waited = true;
+            long remaining;
+            while (open == batch && (remaining = start + waitBudget() - System.nanoTime()) > 0) {
+                changed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // Run what has been collected so far
+            Thread.currentThread().interrupt();
+        } finally {
+            if (open == batch) {
+                open = null;
+            }
+            lock.unlock();
+        }
+        return batch;
+    }
+
+    /**
+     * How long the open batch may wait in total: the expected scoring saving of the
+     * requests still parsing, at most the window. Until batches have been measured, the
+     * whole window. Called with the lock held.
+     */
+    private long waitBudget() {
+        if (parsing == 0) {
+            return 0;
+        }
+        double saving = soloNanosPerSentence - batchedNanosPerSentence;
+        if (Double.isNaN(saving)) {
+            return windowNanos;
+        }
+        return (long) Math.min(windowNanos, Math.max(0, saving * sentencesPerRequest * parsing));
+    }
+
+    private void run(Batch batch) {
+        List<CoreMap> sentences = new ArrayList<>();
+        for (Request request : batch.requests) {
+            sentences.addAll(request.sentences);
+        }
+        batchSizes.record(batch.requests.size());
+        try {
+            long start = System.nanoTime();
+            List<SentenceScore> scores = sentenceScorer.scoreAll(sentences);
+            long end = System.nanoTime();
+            int next = 0;
+            for (Request request : batch.requests) {
+                request.scores.complete(scores.subList(next, next + request.sentences.size()));
+                next += request.sentences.size();
+            }
+            record(batch, sentences.size(), start, end);
+        } catch (RuntimeException e) {
+            batch.requests.forEach(request -> request.scores.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Updates the scoring time estimates and, every {@link #ADJUST_EVERY} requests, the window.
+     */
+    private void record(Batch batch, int sentences, long start, long end) {
+        if (sentences == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            double nanosPerSentence = (double) (end - start) / sentences;
+            boolean solo = batch.requests.size() == 1;
+            if (solo) {
+                soloNanosPerSentence = smooth(soloNanosPerSentence, nanosPerSentence);
+            } else {
+                batchedNanosPerSentence = smooth(batchedNanosPerSentence, nanosPerSentence);
+            }
+            for (Request request : batch.requests) {
+                sentencesPerRequest = smooth(sentencesPerRequest, request.sentences.size());
+                // A lone request that did not wait adds nothing
+                if ((!solo || batch.waited) && !Double.isNaN(soloNanosPerSentence)) {
+                    addedDelayNanos += end - request.joinedNanos
+                            - (long) (soloNanosPerSentence * request.sentences.size());
+                    delaySamples++;
+                }
+                if (++requests % ADJUST_EVERY == 0) {
+                    adjustWindow();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Halves the window if batching delayed requests on average, otherwise grows it;
+     * also when no request waited, so that batching is tried again. Called with the lock held.
+     */
+    private void adjustWindow() {
+        long max = properties.maxWindow().toNanos();
+        windowNanos = delaySamples > 0 && addedDelayNanos > 0
+                ? windowNanos / 2
+                : Math.min(max, windowNanos + max / 10);
+        addedDelayNanos = 0;
+        delaySamples = 0;
+    }
+
+    private static double smooth(double average, double sample) {
+        return Double.isNaN(average) ? sample : average + SMOOTHING * (sample - average);
+    }
+
+    /**
+     * Sentences of a request with their scores.
+     *
+     * @param sentences The parsed sentences
+     * @param scores One score per sentence, in the same order
+     */
+    public record Scored(List<CoreMap> sentences, List<SentenceScore> scores) {
+    }
+
+    private record Request(List<CoreMap> sentences, long joinedNanos,
+                           CompletableFuture<List<SentenceScore>> scores) {
+        private Request(List<CoreMap> sentences, long joinedNanos) {
+            this(sentences, joinedNanos, new CompletableFuture<>());
+        }
+    }
+
+    private static final class Batch {
+        private final List<Request> requests = new ArrayList<>();
+        private boolean waited;
+    }
+}
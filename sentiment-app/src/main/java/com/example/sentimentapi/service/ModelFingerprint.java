@@ -0,0 +1,90 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.jar.JarEntry;
+
+/**
+ * Fingerprint of the configuration that determines sentiment results: parser engine
+ * and model, RNTN evaluator and model, and the sentence guard's limits.
+ *
+ * Stored results (the on-disk cache, precomputed answer tables) carry it and are
+ * ignored when it no longer matches. Models are identified by their contents, never
+ * by where they live, so a table built from one copy of the jar matches any other: a
+ * model file by a hash of its bytes, a classpath model by the size and CRC its jar
+ * entry records (or a hash of its bytes outside a jar).
+ */
+@Component
+public class ModelFingerprint {
+
+    private final String value;
+
+    public ModelFingerprint(ParserProperties parser, RntnProperties rntn, SentenceGuardProperties guard) {
+        String identity = String.join("|",
+                parser.engine().name(), modelIdentity(parser.effectiveModel()),
+                rntn.evaluator().name(), modelIdentity(rntn.model()),
+                String.valueOf(guard.maxTokens()), guard.strategy().name());
+        this.value = HexFormat.of().formatHex(sha256().digest(identity.getBytes(StandardCharsets.UTF_8)), 0, 8);
+    }
+
+    /**
+     * 16 hex digits.
+     */
+    public String value() {
+        return value;
+    }
+
+    private static String modelIdentity(String model) {
+        try {
+            Path path = Path.of(model);
+            if (Files.isRegularFile(path)) {
+                return contentHash(Files.newInputStream(path));
+            }
+            URL resource = ModelFingerprint.class.getClassLoader().getResource(model);
+            if (resource == null) {
+                return model;
+            }
+            URLConnection connection = resource.openConnection();
+            if (connection instanceof JarURLConnection jar) {
+                // The jar's central directory already holds a checksum of the entry
+                JarEntry entry = jar.getJarEntry();
+                if (entry != null && entry.getCrc() != -1) {
+                    return model + ":" + entry.getSize() + ":" + Long.toHexString(entry.getCrc());
+                }
+            }
+            return contentHash(connection.getInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fingerprint model " + model, e);
+        }
+    }
+
+    private static String contentHash(InputStream stream) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(stream, digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.sentimentapi.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is shed because the concurrency limit is reached. The web layer
+ * answers it with 503 and a Retry-After header.
+ */
+public class OverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * How long the client should wait before retrying.
+     */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.sentimentapi.service;
+
+/**
+ * Constituency parsers that can feed the sentiment annotator.
+ * The shift-reduce models ship in the CoreNLP {@code models-english} jar
+ * (Maven profile {@code sr-parser}) and need POS tags as input.
+ */
+public enum ParserEngine {
+
+    /** Default lexicalized PCFG; cubic in sentence length. */
+    PCFG("edu/stanford/nlp/models/lexparser/englishPCFG.ser.gz", false),
+
+    /** Greedy shift-reduce parser; linear in sentence length. */
+    SHIFT_REDUCE("edu/stanford/nlp/models/srparser/englishSR.ser.gz", true),
+
+    /** Shift-reduce parser with beam search; slower than greedy, closer to PCFG accuracy. */
+    SHIFT_REDUCE_BEAM("edu/stanford/nlp/models/srparser/englishSR.beam.ser.gz", true);
+
+    private final String defaultModel;
+    private final boolean requiresTagger;
+
+    ParserEngine(String defaultModel, boolean requiresTagger) {
+        this.defaultModel = defaultModel;
+        this.requiresTagger = requiresTagger;
+    }
+
+    public String defaultModel() {
+        return defaultModel;
+    }
+
+    public boolean requiresTagger() {
+        return requiresTagger;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration for the constituency parser used by the sentiment pipeline.
+ * 
+ * @param engine Parser engine: pcfg, shift-reduce or shift-reduce-beam
+ * @param model Optional classpath or file path overriding the engine's default model
+ */
+@ConfigurationProperties(prefix = "sentiment.parser")
+public record ParserProperties(
+        @DefaultValue("pcfg") ParserEngine engine,
+        String model) {
+
+    /**
+     * Resolves the model path, falling back to the engine default.
+     */
+    public String effectiveModel() {
+        return model != null && !model.isBlank() ? model : engine.defaultModel();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for the on-disk result cache that outlives the process.
+ *
+ * @param enabled Whether results are also written to and read from disk
+ * @param directory Directory holding the cache log; mount a persistent volume here to keep it across pods
+ * @param maxFileSize Size at which the log stops growing; at most 8 TB, as record locations
+ *                    keep the offset in 43 bits
+ */
+@ConfigurationProperties(prefix = "sentiment.persistent-cache")
+public record PersistentCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("/var/cache/sentiment") Path directory,
+        @DefaultValue("256MB") DataSize maxFileSize) {
+
+    public PersistentCacheProperties {
+        if (maxFileSize.toBytes() <= 0 || maxFileSize.toBytes() > 1L << 43) {
+            throw new IllegalArgumentException("max-file-size must be between 1 byte and 8TB: " + maxFileSize);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only on-disk log of document results, layered under {@link ResultCache}.
+ *
+ * The log file name carries the {@link ModelFingerprint}, so a model change starts a
+ * new log and the old ones are deleted. On startup the existing log is memory-mapped
+ * window by window and scanned into an in-memory hash index on a background thread;
+ * until the scan has finished, lookups of older entries miss. Each record is
+ * CRC-checked, and a torn record at the end of the log is cut off.
+ *
+ * A directory has a single writer: the process holding its lock file. Another process
+ * finding the directory locked runs without the on-disk cache rather than appending to
+ * or deleting logs in use.
+ */
+@Component
+public class PersistentResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentResultCache.class);
+
+    private static final String PREFIX = "results-";
+    private static final String SUFFIX = ".log";
+    private static final String LOCK = ".lock";
+    /** Record length, key hash and CRC. */
+    private static final int FRAME = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    /** Index entries pack the record length into the low 20 bits. */
+    private static final int MAX_RECORD = (1 << 20) - 1;
+    /** Most bytes mapped at once while loading; much larger than a record. */
+    private static final long WINDOW = 64L << 20;
+
+    private final PersistentCacheProperties properties;
+    private final String modelVersion;
+    private final HashIndex index = new HashIndex();
+    private final Counter hits;
+    private final Counter misses;
+
+    private FileChannel channel;
+    private FileLock lock;
+    private long end;
+    private boolean full;
+
+    public PersistentResultCache(PersistentCacheProperties properties, ModelFingerprint modelFingerprint,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.modelVersion = modelFingerprint.value();
+        this.hits = Counter.builder("sentiment.persistent.cache.gets")
+                .description("Lookups in the on-disk result cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("sentiment.persistent.cache.gets")
+                .description("Lookups in the on-disk result cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.persistent.cache.size", index, HashIndex::size)
+                .description("Entries in the on-disk result cache index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!properties.enabled()) {
+            return;
+        }
+        Path log = properties.directory().resolve(PREFIX + modelVersion + SUFFIX);
+        try {
+            Files.createDirectories(properties.directory());
+            this.lock = tryLock(properties.directory().resolve(LOCK));
+            if (lock == null) {
+                logger.warn("Persistent result cache disabled: {} is in use by another process",
+                        properties.directory());
+                return;
+            }
+            deleteStaleLogs(log);
+            this.channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.end = channel.size();
+        } catch (IOException e) {
+            logger.warn("Persistent result cache disabled: cannot open {}", log, e);
+            this.channel = null;
+            releaseLock();
+            return;
+        }
+        long existing = end;
+        Thread loader = new Thread(() -> load(log, existing), "sentiment-cache-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        releaseLock();
+    }
+
+    /**
+     * Looks up a normalized text.
+     *
+     * @return The stored result, or null
+     */
+    public SentimentResult get(String key) {
+        if (channel == null) {
+            return null;
+        }
+        long hash = hash(key);
+        long location = index.get(hash);
+        SentimentResult result = location < 0 ? null : read(location, key);
+        (result != null ? hits : misses).increment();
+        return result;
+    }
+
+    /**
+     * Appends a result; silently skipped once the log has reached its size limit.
+     */
+    public void put(String key, SentimentResult result) {
+        if (channel == null) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] label = result.sentiment().getBytes(StandardCharsets.UTF_8);
+        int length = FRAME + Integer.BYTES + keyBytes.length + 1 + label.length + 6 * Double.BYTES;
+        if (length > MAX_RECORD) {
+            return;
+        }
+        long hash = hash(key);
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length).putLong(hash).putInt(keyBytes.length).put(keyBytes)
+                .put((byte) label.length).put(label).putDouble(result.confidence());
+        for (double score : result.scores()) {
+            record.putDouble(score);
+        }
+        record.putInt(crc(record.array(), length));
+        record.flip();
+        synchronized (this) {
+            if (end + length > properties.maxFileSize().toBytes()) {
+                if (!full) {
+                    full = true;
+                    logger.warn("Persistent result cache reached {}; no longer appending", properties.maxFileSize());
+                }
+                return;
+            }
+            try {
+                long position = end;
+                while (record.hasRemaining()) {
+                    position += channel.write(record, position);
+                }
+                index.put(hash, location(end, length));
+                end = position;
+            } catch (IOException e) {
+                logger.warn("Failed to append to persistent result cache", e);
+            }
+        }
+    }
+
+    /**
+     * Scans the records written by earlier processes into the index. Entries appended
+     * since startup are newer and win.
+     */
+    private void load(Path log, long size) {
+        long start = System.nanoTime();
+        long valid = 0;
+        try {
+            if (size > 0) {
+                MappedByteBuffer window = null;
+                long windowStart = 0;
+                while (valid + FRAME <= size) {
+                    // Remap once the next record might run past the window, so none straddles two
+                    long windowEnd = window == null ? 0 : windowStart + window.capacity();
+                    if (window == null || valid + MAX_RECORD > windowEnd && windowEnd < size) {
+                        windowStart = valid;
+                        window = channel.map(FileChannel.MapMode.READ_ONLY, valid, Math.min(WINDOW, size - valid));
+                    }
+                    int offset = (int) (valid - windowStart);
+                    int length = window.getInt(offset);
+                    if (length < FRAME || length > MAX_RECORD || valid + length > size
+                            || window.getInt(offset + length - Integer.BYTES) != crc(window, offset, length)) {
+                        break;
+                    }
+                    index.putIfAbsent(window.getLong(offset + Integer.BYTES), location(valid, length));
+                    valid += length;
+                }
+                if (valid < size) {
+                    logger.warn("Discarding {} bytes of incomplete records at the end of {}", size - valid, log);
+                    truncate(valid, size);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load persistent result cache {}", log, e);
+        }
+        logger.info("Persistent result cache {} loaded: {} entries in {} ms", log.getFileName(), index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Cuts a torn tail off the log, unless new records were appended after it already.
+     */
+    private synchronized void truncate(long valid, long size) throws IOException {
+        if (end == size) {
+            channel.truncate(valid);
+            end = valid;
+        }
+    }
+
+    private SentimentResult read(long location, String key) {
+        int length = (int) (location & MAX_RECORD);
+        ByteBuffer record = ByteBuffer.allocate(length);
+        try {
+            long position = location >>> 20;
+            while (record.hasRemaining()) {
+                if (channel.read(record, position + record.position()) < 0) {
+                    return null;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read from persistent result cache", e);
+            return null;
+        }
+        record.position(Integer.BYTES + Long.BYTES);
+        byte[] keyBytes = new byte[record.getInt()];
+        record.get(keyBytes);
+        if (!key.equals(new String(keyBytes, StandardCharsets.UTF_8))) {
+            return null;
+        }
+        byte[] label = new byte[record.get()];
+        record.get(label);
+        double confidence = record.getDouble();
+        double[] scores = new double[5];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = record.getDouble();
+        }
+        return new SentimentResult(new String(label, StandardCharsets.UTF_8), confidence, scores, false);
+    }
+
+    /**
+     * Takes the directory's lock file, or returns null if another process holds it.
+     */
+    private static FileLock tryLock(Path lockFile) throws IOException {
+        FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock acquired = lockChannel.tryLock();
+            if (acquired != null) {
+                return acquired;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Held by another cache in this JVM
+        }
+        lockChannel.close();
+        return null;
+    }
+
+    private void releaseLock() {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.channel().close();
+        } catch (IOException e) {
+            logger.warn("Failed to release persistent result cache lock", e);
+        }
+        lock = null;
+    }
+
+    private void deleteStaleLogs(Path current) throws IOException {
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(properties.directory(), PREFIX + "*" + SUFFIX)) {
+            for (Path log : logs) {
+                if (!log.equals(current)) {
+                    logger.info("Deleting persistent result cache for another model version: {}", log);
+                    Files.deleteIfExists(log);
+                }
+            }
+        }
+    }
+
+    private static long location(long offset, int length) {
+        return offset << 20 | length;
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int crc(byte[] record, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(record, Integer.BYTES, length - 2 * Integer.BYTES);
+        return (int) crc.getValue();
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + Integer.BYTES, length - 2 * Integer.BYTES));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Open-addressing map from key hash to record location, about 32 bytes per entry.
+     */
+    private static final class HashIndex {
+        private long[] hashes = new long[1024];
+        private long[] locations = new long[1024];
+        private boolean[] used = new boolean[1024];
+        private int size;
+
+        synchronized long get(long hash) {
+            int mask = hashes.length - 1;
+            for (int i = slot(hash, mask); used[i]; i = (i + 1) & mask) {
+                if (hashes[i] == hash) {
+                    return locations[i];
+                }
+            }
+            return -1;
+        }
+
+        synchronized void put(long hash, long location) {
+            insert(hash, location, true);
+        }
+
+        synchronized void putIfAbsent(long hash, long location) {
+            insert(hash, location, false);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void insert(long hash, long location, boolean replace) {
+            if (2 * (size + 1) > hashes.length) {
+                grow();
+            }
+            int mask = hashes.length - 1;
+            int i = slot(hash, mask);
+            while (used[i]) {
+                if (hashes[i] == hash) {
+                    if (replace) {
+                        locations[i] = location;
+                    }
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            hashes[i] = hash;
+            locations[i] = location;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldHashes = hashes;
+            long[] oldLocations = locations;
+            boolean[] oldUsed = used;
+            hashes = new long[oldHashes.length * 2];
+            locations = new long[oldHashes.length * 2];
+            used = new boolean[oldHashes.length * 2];
+            size = 0;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldUsed[i]) {
+                    insert(oldHashes[i], oldLocations[i], true);
+                }
+            }
+        }
+
+        private static int slot(long hash, int mask) {
+            return (int) (hash ^ hash >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.sentimentapi.service;
+
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fixed-size pool of Stanford CoreNLP pipeline workers.
+ *
+ * CoreNLP caches annotators by their configuration signature, so every worker
+ * built from the same properties shares one copy of the tokenizer, parser and
+ * sentiment models. Per-call state (parser queries, annotation graphs) is created
+ * inside each process() call, so workers never share mutable state. The pool bounds
+ * how many documents are annotated at once and reports how long requests wait.
+ */
+@Component
+public class PipelinePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelinePool.class);
+
+    private final PipelinePoolProperties properties;
+    private final ParserProperties parserProperties;
+    private final SentenceGuardProperties guardProperties;
+    private final RntnProperties rntnProperties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger active = new AtomicInteger();
+
+    private BlockingQueue<SentencePipeline> idle;
+    private int size;
+    private Timer waitTimer;
+    private Counter timeouts;
+
+    public PipelinePool(PipelinePoolProperties properties, ParserProperties parserProperties,
+                        SentenceGuardProperties guardProperties, RntnProperties rntnProperties,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.parserProperties = parserProperties;
+        this.guardProperties = guardProperties;
+        this.rntnProperties = rntnProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.size = properties.effectiveSize();
+        logger.info("Initializing {} Stanford CoreNLP pipeline workers for sentiment analysis ({} parser)...",
+                size, parserProperties.engine());
+        requireParserModel();
+
+        Properties segmenterProps = CoreNlpProperties.forSegmenter();
+        Properties annotatorProps = CoreNlpProperties.forAnnotator(parserProperties, guardProperties,
+                rntnProperties);
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(new SentencePipeline(new StanfordCoreNLP(segmenterProps), new StanfordCoreNLP(annotatorProps)));
+        }
+
+        this.waitTimer = Timer.builder("sentiment.pool.wait")
+                .description("Time spent waiting for a free pipeline worker")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("sentiment.pool.timeouts")
+                .description("Checkouts that gave up waiting for a pipeline worker")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.pool.size", () -> size)
+                .description("Number of pipeline workers")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.pool.active", active, AtomicInteger::get)
+                .description("Pipeline workers currently checked out")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.pool.utilization", active, a -> (double) a.get() / size)
+                .description("Fraction of pipeline workers currently checked out")
+                .register(meterRegistry);
+
+        logger.info("Stanford CoreNLP pipeline pool initialized successfully");
+    }
+
+    /**
+     * Fails start-up with a clear message if the parser model is not available, rather
+     * than deep inside CoreNLP.
+     */
+    private void requireParserModel() {
+        String model = parserProperties.effectiveModel();
+        if (Files.isRegularFile(Path.of(model)) || getClass().getClassLoader().getResource(model) != null) {
+            return;
+        }
+        String hint = parserProperties.engine() != ParserEngine.PCFG
+                ? "; the shift-reduce models need a build with -Psr-parser"
+                        + " (docker build --build-arg MAVEN_PROFILES=sr-parser)"
+                : "";
+        throw new IllegalStateException("Parser model " + model + " not found" + hint);
+    }
+
+    /**
+     * Runs the given work with a pipeline worker checked out of the pool.
+     *
+     * @param deadline Deadline of the request; the checkout gives up when it passes
+     * @param work The work to run against the borrowed pipeline
+     * @return The result of the work
+     * @throws PipelineUnavailableException if no worker is free within the checkout timeout
+     * @throws DeadlineExceededException if no worker is free before the deadline
+     */
+    public <T> T withPipeline(Deadline deadline, Function<SentencePipeline, T> work) {
+        SentencePipeline pipeline = checkout(deadline);
+        try {
+            // Work that expired or was cancelled while waiting is dropped
+            deadline.check();
+            return work.apply(pipeline);
+        } finally {
+            active.decrementAndGet();
+            idle.add(pipeline);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private SentencePipeline checkout(Deadline deadline) {
+        long start = System.nanoTime();
+        SentencePipeline pipeline;
+        try {
+            pipeline = idle.poll(deadline.boundNanos(properties.checkoutTimeout()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineUnavailableException("Interrupted while waiting for a pipeline worker");
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (pipeline == null) {
+            deadline.check();
+            timeouts.increment();
+            throw new PipelineUnavailableException(
+                    "No pipeline worker became free within " + properties.checkoutTimeout());
+        }
+        active.incrementAndGet();
+        return pipeline;
+    }
+}
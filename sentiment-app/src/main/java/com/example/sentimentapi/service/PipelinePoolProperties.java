@@ -0,0 +1,25 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the pool of CoreNLP pipeline workers.
+ * 
+ * @param size Number of workers; 0 sizes the pool from the container CPU quota
+ * @param checkoutTimeout How long a request waits for a free worker before failing
+ */
+@ConfigurationProperties(prefix = "sentiment.pool")
+public record PipelinePoolProperties(
+        @DefaultValue("0") int size,
+        @DefaultValue("5s") Duration checkoutTimeout) {
+
+    /**
+     * Resolves the configured size, falling back to the CPU quota.
+     */
+    public int effectiveSize() {
+        return size > 0 ? size : CpuQuota.availableCpus();
+    }
+}
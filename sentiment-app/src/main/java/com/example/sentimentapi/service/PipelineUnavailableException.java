@@ -0,0 +1,15 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when no pipeline worker became free within the checkout timeout.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PipelineUnavailableException extends RuntimeException {
+
+    public PipelineUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.service.InferenceExecutor.Lane;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution: concurrent callers with the same key share one computation.
+ *
+ * The first caller for a key runs the work; callers arriving while it is in flight
+ * wait for and return its result, or rethrow its exception. The entry is removed as
+ * soon as the work finishes, so later callers start a new computation (or, normally,
+ * find the result in the cache the work populated). Callers wait no longer than their
+ * own deadline. If the computation was abandoned at its leader's deadline, a caller
+ * with time left starts a new one.
+ *
+ * Callers only join computations running in their own or a higher-priority lane: a bulk
+ * caller may share an interactive computation, but an interactive caller never waits
+ * behind one queued in the bulk lane. It runs its own instead, and later callers join that.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.coalesced = Counter.builder("sentiment.coalesced")
+                .description("Requests that shared an identical in-flight computation instead of running their own")
+                .register(meterRegistry);
+        Gauge.builder("sentiment.inflight", inFlight, Map::size)
+                .description("Distinct texts currently being analyzed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the work for a key, or joins the computation already running for it.
+     *
+     * @param key Normalized text
+     * @param lane Inference lane the work runs in
+     * @param deadline Deadline of the caller
+     * @param work Computation of the result
+     * @return The result of this or the in-flight computation
+     * @throws DeadlineExceededException if the deadline passes while waiting for another caller's computation
+     */
+    public SentimentResult execute(String key, Lane lane, Deadline deadline, Supplier<SentimentResult> work) {
+        Flight own = new Flight(lane, new CompletableFuture<>());
+        Flight running;
+        while ((running = inFlight.putIfAbsent(key, own)) != null) {
+            if (running.lane().compareTo(lane) > 0) {
+                // Lanes are declared highest priority first; take the entry over from the lower one
+                if (inFlight.replace(key, running, own)) {
+                    break;
+                }
+                continue;
+            }
+            coalesced.increment();
+            try {
+                return await(running.result(), deadline);
+            } catch (DeadlineExceededException e) {
+                if (deadline.expired()) {
+                    throw e;
+                }
+                // The leader ran out of time; its entry may not be removed yet
+                inFlight.remove(key, running);
+            }
+        }
+        try {
+            SentimentResult result = work.get();
+            own.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            own.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private static SentimentResult await(CompletableFuture<SentimentResult> running, Deadline deadline) {
+        try {
+            return deadline.isBounded()
+                    ? running.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS)
+                    : running.join();
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Request deadline passed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineUnavailableException("Interrupted while waiting for an in-flight computation");
+        } catch (ExecutionException | CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * A computation in flight and the lane it runs in.
+     */
+    private record Flight(Lane lane, CompletableFuture<SentimentResult> result) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of document results keyed by normalized text.
+ *
+ * Caffeine's W-TinyLFU policy admits a new entry only if it is likely to be used more
+ * often than the one it would evict, so one-off texts do not flush the repeated ones.
+ * Hits, misses and evictions are published as {@code cache_*{cache="sentiment.results"}}.
+ * Misses fall through to the optional {@link PersistentResultCache}.
+ */
+@Component
+public class ResultCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ResultCacheProperties properties;
+    private final PersistentResultCache persistentCache;
+    private final Cache<String, SentimentResult> cache;
+
+    public ResultCache(ResultCacheProperties properties, PersistentResultCache persistentCache,
+                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.persistentCache = persistentCache;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "sentiment.results");
+    }
+
+    /**
+     * Normalizes a text into a cache key.
+     *
+     * @return The key, or null if the text should not be cached
+     */
+    public String key(String text) {
+        if (!properties.enabled()) {
+            return null;
+        }
+        String key = normalize(text);
+        return key.length() <= properties.maxTextLength() ? key : null;
+    }
+
+    /**
+     * Unicode NFC, trimmed, runs of whitespace collapsed: texts that only differ in
+     * these respects get the same result.
+     */
+    public static String normalize(String text) {
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip()).replaceAll(" ");
+    }
+
+    public SentimentResult get(String key) {
+        if (key == null) {
+            return null;
+        }
+        SentimentResult result = cache.getIfPresent(key);
+        if (result == null) {
+            result = persistentCache.get(key);
+            if (result != null) {
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Caches a result unless it is an error or depended on the guard's fallbacks, which
+     * can be caused by transient load (parse time budget) rather than by the text.
+     */
+    public void put(String key, SentimentResult result) {
+        if (key != null && !result.fallback() && !"error".equals(result.sentiment())) {
+            cache.put(key, result);
+            persistentCache.put(key, result);
+        }
+    }
+}
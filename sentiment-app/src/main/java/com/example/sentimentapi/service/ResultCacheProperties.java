@@ -0,0 +1,22 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the in-process cache of document results.
+ *
+ * @param enabled Whether results are cached
+ * @param maximumSize Maximum number of cached results
+ * @param ttl How long a result stays cached after it was computed
+ * @param maxTextLength Longest normalized text that is cached; longer texts are rarely repeated
+ */
+@ConfigurationProperties(prefix = "sentiment.cache")
+public record ResultCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("1h") Duration ttl,
+        @DefaultValue("1000") int maxTextLength) {
+}
@@ -0,0 +1,38 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.rntn.RntnModelFile;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration for the RNTN sentiment model.
+ * 
+ * @param evaluator Which implementation scores parse trees: flat (flat arrays, no per-node objects) or corenlp
+ * @param model Classpath or file path of the serialized CoreNLP sentiment model, or file path of a
+ *              converted {@code .rntn} model (flat evaluator only)
+ * @param simd Use Vector API kernels in the flat evaluator when jdk.incubator.vector is available;
+ *             off by default because their reordered sums are not bit-exact with CoreNLP
+ * @param phraseMemoSize Node vectors of frequent short phrases kept by the flat evaluator; 0 disables the memo
+ * @param phraseMemoMaxLeaves Longest phrase, in words, whose node vector is memoized
+ */
+@ConfigurationProperties(prefix = "sentiment.rntn")
+public record RntnProperties(
+        @DefaultValue("flat") Evaluator evaluator,
+        @DefaultValue("edu/stanford/nlp/models/sentiment/sentiment.ser.gz") String model,
+        @DefaultValue("false") boolean simd,
+        @DefaultValue("50000") long phraseMemoSize,
+        @DefaultValue("4") int phraseMemoMaxLeaves) {
+
+    public RntnProperties {
+        if (evaluator == Evaluator.CORENLP && RntnModelFile.isModelFile(model)) {
+            throw new IllegalArgumentException("Converted RNTN models need the flat evaluator: " + model);
+        }
+    }
+
+    public enum Evaluator {
+        /** Flat-array evaluator working directly on the parser's binarized trees. */
+        FLAT,
+        /** CoreNLP's sentiment annotator. */
+        CORENLP
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.sentimentapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cache of sentence scores keyed by the sentence's tokens.
+ *
+ * Lookups happen right after segmentation, so boilerplate sentences shared by many
+ * documents (signatures, disclaimers, quoted replies) skip parsing and scoring. Hits
+ * are attached to the sentence as a {@link CachedScoreAnnotation}. Hits and misses are
+ * published as {@code cache_gets_total{cache="sentiment.sentences"}}.
+ */
+@Component
+public class SentenceCache {
+
+    private final SentenceCacheProperties properties;
+    private final Cache<String, SentenceScore> cache;
+
+    public SentenceCache(SentenceCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "sentiment.sentences");
+    }
+
+    /**
+     * Score of a sentence that was answered from the cache.
+     */
+    public static class CachedScoreAnnotation implements CoreAnnotation<SentenceScore> {
+        @Override
+        public Class<SentenceScore> getType() {
+            return SentenceScore.class;
+        }
+    }
+
+    /**
+     * Attaches cached scores to the sentences that have one.
+     *
+     * @param sentences Segmented sentences
+     * @return The sentences that still need to be parsed and scored
+     */
+    public List<CoreMap> lookup(List<CoreMap> sentences) {
+        if (!properties.enabled()) {
+            return sentences;
+        }
+        List<CoreMap> misses = new ArrayList<>(sentences.size());
+        for (CoreMap sentence : sentences) {
+            SentenceScore score = cache.getIfPresent(key(sentence));
+            if (score != null) {
+                sentence.set(CachedScoreAnnotation.class, score);
+            } else {
+                misses.add(sentence);
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Caches the score of a freshly scored sentence.
+     */
+    public void put(CoreMap sentence, SentenceScore score) {
+        if (properties.enabled() && !sentence.containsKey(CachedScoreAnnotation.class)) {
+            cache.put(key(sentence), score);
+        }
+    }
+
+    private static String key(CoreMap sentence) {
+        List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+        StringBuilder key = new StringBuilder();
+        for (CoreLabel token : tokens) {
+            if (!key.isEmpty()) {
+                key.append(' ');
+            }
+            key.append(token.word());
+        }
+        return key.toString();
+    }
+}
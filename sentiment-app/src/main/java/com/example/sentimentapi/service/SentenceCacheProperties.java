@@ -0,0 +1,20 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the cache of sentence scores shared across documents.
+ *
+ * @param enabled Whether sentence scores are cached
+ * @param maximumSize Maximum number of cached sentences
+ * @param ttl How long a sentence score stays cached after it was computed
+ */
+@ConfigurationProperties(prefix = "sentiment.sentence-cache")
+public record SentenceCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("1h") Duration ttl) {
+}
@@ -0,0 +1,165 @@
+package com.example.sentimentapi.service;
+
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bounds the parse cost of every sentence.
+ *
+ * Before parsing, sentences longer than the token limit are split at clause
+ * boundaries, truncated, or left for the parser's flat-tree fallback. After
+ * parsing, sentences that hit the length limit or the parse time budget are
+ * recognized by their flat "X" root and counted.
+ */
+@Component
+public class SentenceGuard {
+
+    private static final Set<String> CLAUSE_BOUNDARIES = Set.of(
+            ",", ";", ":", "--", "-", "and", "but", "or", "so", "yet", "because", "although", "while");
+
+    private final SentenceGuardProperties properties;
+    private final Counter splits;
+    private final Counter truncations;
+    private final Counter lengthFallbacks;
+    private final Counter timeoutFallbacks;
+
+    public SentenceGuard(SentenceGuardProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.splits = fallbackCounter(meterRegistry, "split");
+        this.truncations = fallbackCounter(meterRegistry, "truncate");
+        this.lengthFallbacks = fallbackCounter(meterRegistry, "length");
+        this.timeoutFallbacks = fallbackCounter(meterRegistry, "timeout");
+    }
+
+    /**
+     * Marks sentences produced by splitting or truncating a longer sentence.
+     */
+    public static class LimitedAnnotation implements CoreAnnotation<Boolean> {
+        @Override
+        public Class<Boolean> getType() {
+            return Boolean.class;
+        }
+    }
+
+    /**
+     * Rewrites over-long sentences of a segmented annotation according to the strategy.
+     *
+     * @param annotation Annotation produced by the segmentation stage
+     */
+    public void limitSentences(Annotation annotation) {
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        int maxTokens = properties.maxTokens();
+        if (properties.strategy() == SentenceGuardProperties.Strategy.FALLBACK
+                || sentences.stream().allMatch(s -> tokens(s).size() <= maxTokens)) {
+            return;
+        }
+
+        List<CoreMap> limited = new ArrayList<>(sentences.size());
+        for (CoreMap sentence : sentences) {
+            List<CoreLabel> tokens = tokens(sentence);
+            if (tokens.size() <= maxTokens) {
+                limited.add(sentence);
+            } else if (properties.strategy() == SentenceGuardProperties.Strategy.TRUNCATE) {
+                truncations.increment();
+                limited.add(subSentence(annotation, tokens, 0, maxTokens));
+            } else {
+                splits.increment();
+                int start = 0;
+                while (start < tokens.size()) {
+                    int end = clauseEnd(tokens, start, maxTokens);
+                    limited.add(subSentence(annotation, tokens, start, end));
+                    start = end;
+                }
+            }
+        }
+        for (int i = 0; i < limited.size(); i++) {
+            limited.get(i).set(CoreAnnotations.SentenceIndexAnnotation.class, i);
+        }
+        annotation.set(CoreAnnotations.SentencesAnnotation.class, limited);
+    }
+
+    /**
+     * Checks whether a sentence was rewritten before parsing or scored from the
+     * parser's flat fallback tree.
+     *
+     * @param sentence An annotated sentence
+     * @return true if the sentence was not parsed as written
+     */
+    public boolean isFallback(CoreMap sentence) {
+        if (Boolean.TRUE.equals(sentence.get(LimitedAnnotation.class))) {
+            return true;
+        }
+        Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+        if (tree == null || !"X".equals(tree.label().value())) {
+            return false;
+        }
+        if (tokens(sentence).size() > properties.maxTokens()) {
+            lengthFallbacks.increment();
+        } else {
+            timeoutFallbacks.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Picks the end of the next piece: just after the last clause boundary that
+     * keeps the piece within the limit, or a hard cut at the limit.
+     */
+    private int clauseEnd(List<CoreLabel> tokens, int start, int maxTokens) {
+        int limit = start + maxTokens;
+        if (limit >= tokens.size()) {
+            return tokens.size();
+        }
+        for (int i = limit - 1; i > start + maxTokens / 4; i--) {
+            if (CLAUSE_BOUNDARIES.contains(tokens.get(i).word().toLowerCase())) {
+                // Keep punctuation with the left piece, start the right piece with the conjunction
+                return Character.isLetter(tokens.get(i).word().charAt(0)) ? i : i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private CoreMap subSentence(Annotation annotation, List<CoreLabel> tokens, int start, int end) {
+        List<CoreLabel> piece = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            CoreLabel token = new CoreLabel(tokens.get(i));
+            token.setIndex(i - start + 1);
+            piece.add(token);
+        }
+        int beginOffset = piece.get(0).beginPosition();
+        int endOffset = piece.get(piece.size() - 1).endPosition();
+
+        CoreMap sentence = new ArrayCoreMap();
+        sentence.set(LimitedAnnotation.class, true);
+        sentence.set(CoreAnnotations.TokensAnnotation.class, piece);
+        sentence.set(CoreAnnotations.TextAnnotation.class,
+                annotation.get(CoreAnnotations.TextAnnotation.class).substring(beginOffset, endOffset));
+        sentence.set(CoreAnnotations.CharacterOffsetBeginAnnotation.class, beginOffset);
+        sentence.set(CoreAnnotations.CharacterOffsetEndAnnotation.class, endOffset);
+        return sentence;
+    }
+
+    private static List<CoreLabel> tokens(CoreMap sentence) {
+        return sentence.get(CoreAnnotations.TokensAnnotation.class);
+    }
+
+    private static Counter fallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("sentiment.guard.fallbacks")
+                .description("Sentences that were not parsed as-is because of the length limit or parse time budget")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
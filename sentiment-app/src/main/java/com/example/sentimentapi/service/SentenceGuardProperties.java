@@ -0,0 +1,29 @@
+package com.example.sentimentapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limits that keep one pathological sentence from stalling a pipeline worker.
+ * 
+ * @param maxTokens Longest sentence handed to the parser as-is
+ * @param parseTimeBudget Parse time allowed per sentence before falling back to a flat tree; 0 disables it
+ * @param strategy What to do with sentences longer than maxTokens
+ */
+@ConfigurationProperties(prefix = "sentiment.guard")
+public record SentenceGuardProperties(
+        @DefaultValue("80") int maxTokens,
+        @DefaultValue("500ms") Duration parseTimeBudget,
+        @DefaultValue("split") Strategy strategy) {
+
+    public enum Strategy {
+        /** Split at clause boundaries into pieces of at most maxTokens. */
+        SPLIT,
+        /** Keep only the first maxTokens tokens. */
+        TRUNCATE,
+        /** Skip parsing and score a flat tree over all tokens. */
+        FALLBACK
+    }
+}
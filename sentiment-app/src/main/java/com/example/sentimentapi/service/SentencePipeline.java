@@ -0,0 +1,33 @@
+package com.example.sentimentapi.service;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+/**
+ * One pipeline worker, split at the sentence boundary so sentences can be
+ * inspected or rewritten between segmentation and parsing.
+ */
+public final class SentencePipeline {
+
+    private final StanfordCoreNLP segmenter;
+    private final StanfordCoreNLP annotator;
+
+    public SentencePipeline(StanfordCoreNLP segmenter, StanfordCoreNLP annotator) {
+        this.segmenter = segmenter;
+        this.annotator = annotator;
+    }
+
+    /**
+     * Tokenizes the text and splits it into sentences.
+     */
+    public Annotation segment(String text) {
+        return segmenter.process(text);
+    }
+
+    /**
+     * Parses and scores every sentence of a segmented annotation in place.
+     */
+    public void annotate(Annotation annotation) {
+        annotator.annotate(annotation);
+    }
+}
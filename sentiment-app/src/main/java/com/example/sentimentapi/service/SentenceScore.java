@@ -0,0 +1,10 @@
+package com.example.sentimentapi.service;
+
+/**
+ * Sentiment of a single sentence.
+ * 
+ * @param predictedClass Predicted class on CoreNLP's 0-4 scale
+ * @param scores Probabilities for each class [very negative, negative, neutral, positive, very positive]
+ */
+public record SentenceScore(int predictedClass, double[] scores) {
+}
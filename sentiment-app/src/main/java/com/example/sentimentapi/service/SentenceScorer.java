@@ -0,0 +1,142 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.rntn.RntnBatchEvaluator;
+import com.example.sentimentapi.rntn.RntnEvaluator;
+import com.example.sentimentapi.rntn.RntnKernels;
+import com.example.sentimentapi.rntn.PhraseMemo;
+import com.example.sentimentapi.rntn.RntnModelFile;
+import com.example.sentimentapi.rntn.RntnWeights;
+import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.sentiment.SentimentModel;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores parsed sentences with the RNTN sentiment model.
+ *
+ * With the flat evaluator the pipeline stops after parsing and the model runs
+ * directly on the binarized tree; with the CoreNLP evaluator the scores are read
+ * from the tree annotated by the sentiment annotator.
+ */
+@Component
+public class SentenceScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SentenceScorer.class);
+
+    private final RntnProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private RntnEvaluator evaluator;
+    private RntnBatchEvaluator batchEvaluator;
+
+    public SentenceScorer(RntnProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.evaluator() == RntnProperties.Evaluator.FLAT) {
+            logger.info("Loading flat RNTN evaluator from {}", properties.model());
+            RntnWeights weights = loadWeights(properties.model());
+            logger.info("RNTN model: {} words at {} ({} KB of word vectors)",
+                    weights.vocabularySize(), weights.precision(), weights.leafBytes() / 1024);
+            RntnKernels kernels = RntnKernels.select(properties.simd());
+            PhraseMemo memo = null;
+            if (properties.phraseMemoSize() > 0) {
+                memo = new PhraseMemo(properties.phraseMemoMaxLeaves(), properties.phraseMemoSize());
+                CaffeineCacheMetrics.monitor(meterRegistry, memo.cache(), "sentiment.phrases");
+            }
+            this.evaluator = new RntnEvaluator(weights, kernels, memo);
+            this.batchEvaluator = new RntnBatchEvaluator(weights, kernels, memo);
+        }
+    }
+
+    /**
+     * Scores one sentence that has been through the annotation stage or was answered
+     * from the sentence cache.
+     * 
+     * @param sentence The parsed sentence
+     * @return Predicted class and class distribution of the sentence root
+     */
+    public SentenceScore score(CoreMap sentence) {
+        SentenceScore cached = sentence.get(SentenceCache.CachedScoreAnnotation.class);
+        if (cached != null) {
+            return cached;
+        }
+        if (evaluator != null) {
+            double[] scores = new double[5];
+            Tree tree = sentence.get(TreeCoreAnnotations.BinarizedTreeAnnotation.class);
+            int predictedClass = evaluator.evaluate(tree, scores);
+            return new SentenceScore(predictedClass, scores);
+        }
+        Tree tree = sentence.get(SentimentCoreAnnotations.SentimentAnnotatedTree.class);
+        return new SentenceScore(RNNCoreAnnotations.getPredictedClass(tree), getScoresFromTree(tree));
+    }
+
+    /**
+     * Scores many parsed or cached sentences, evaluating the trees of the uncached ones
+     * level by level in one batch when the flat evaluator is enabled.
+     * 
+     * @param sentences Parsed sentences, possibly from different documents
+     * @return One score per sentence, in the same order
+     */
+    public List<SentenceScore> scoreAll(List<CoreMap> sentences) {
+        if (batchEvaluator == null) {
+            return sentences.stream().map(this::score).toList();
+        }
+        List<Tree> trees = new ArrayList<>(sentences.size());
+        for (CoreMap sentence : sentences) {
+            if (!sentence.containsKey(SentenceCache.CachedScoreAnnotation.class)) {
+                trees.add(sentence.get(TreeCoreAnnotations.BinarizedTreeAnnotation.class));
+            }
+        }
+        double[][] scores = new double[trees.size()][5];
+        int[] predictedClasses = batchEvaluator.evaluate(trees, scores);
+        List<SentenceScore> results = new ArrayList<>(sentences.size());
+        int next = 0;
+        for (CoreMap sentence : sentences) {
+            SentenceScore cached = sentence.get(SentenceCache.CachedScoreAnnotation.class);
+            if (cached != null) {
+                results.add(cached);
+            } else {
+                results.add(new SentenceScore(predictedClasses[next], scores[next]));
+                next++;
+            }
+        }
+        return results;
+    }
+
+    private static RntnWeights loadWeights(String model) {
+        if (!RntnModelFile.isModelFile(model)) {
+            return RntnWeights.from(SentimentModel.loadSerialized(model));
+        }
+        try {
+            return RntnModelFile.read(Path.of(model));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load RNTN model " + model, e);
+        }
+    }
+
+    private double[] getScoresFromTree(Tree tree) {
+        double[] scores = new double[5];
+        for (int i = 0; i < 5; i++) {
+            scores[i] = RNNCoreAnnotations.getPredictions(tree).get(i);
+        }
+        return scores;
+    }
+}
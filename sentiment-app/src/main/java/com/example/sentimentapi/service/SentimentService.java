@@ -1,18 +1,28 @@
 package com.example.sentimentapi.service;
 
+import com.example.sentimentapi.service.InferenceExecutor.Lane;
 import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
 import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
-import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
-import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.util.CoreMap;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.Properties;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Advanced sentiment analysis service using Stanford CoreNLP.
@@ -23,88 +33,529 @@ public class SentimentService {
 
     private static final Logger logger = LoggerFactory.getLogger(SentimentService.class);
     
-    private StanfordCoreNLP pipeline;
+    private final PipelinePool pipelinePool;
+    private final SentenceGuard sentenceGuard;
+    private final SentenceScorer sentenceScorer;
+    private final ResultCache resultCache;
+    private final SentenceCache sentenceCache;
+    private final RequestCoalescer requestCoalescer;
+    private final MicroBatcher microBatcher;
+    private final InferenceExecutor inferenceExecutor;
+    private final int batchParallelism;
+    private final boolean bulkhead;
+    private final int documentParallelism;
+    private final int minParallelSentences;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final TextCostEstimator costEstimator;
+    private final Counter expired;
+    private final Timer wasted;
+    private final DistributionSummary documentThreads;
+    private final Executor asyncCallers = Executors.newVirtualThreadPerTaskExecutor();
 
-    @PostConstruct
-    public void init() {
-        logger.info("Initializing Stanford CoreNLP pipeline for sentiment analysis...");
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize, ssplit, parse, sentiment");
-        // Use default models - they will be loaded from the classpath
-        this.pipeline = new StanfordCoreNLP(props);
-        logger.info("Stanford CoreNLP pipeline initialized successfully");
+    public SentimentService(PipelinePool pipelinePool, SentenceGuard sentenceGuard, SentenceScorer sentenceScorer,
+                            ResultCache resultCache, SentenceCache sentenceCache,
+                            RequestCoalescer requestCoalescer, MicroBatcher microBatcher,
+                            InferenceExecutor inferenceExecutor, BatchProperties batchProperties,
+                            InferenceProperties inferenceProperties,
+                            AdaptiveConcurrencyLimiter concurrencyLimiter, TextCostEstimator costEstimator,
+                            MeterRegistry meterRegistry) {
+        this.pipelinePool = pipelinePool;
+        this.sentenceGuard = sentenceGuard;
+        this.sentenceScorer = sentenceScorer;
+        this.resultCache = resultCache;
+        this.sentenceCache = sentenceCache;
+        this.requestCoalescer = requestCoalescer;
+        this.microBatcher = microBatcher;
+        this.inferenceExecutor = inferenceExecutor;
+        this.batchParallelism = batchProperties.effectiveParallelism(inferenceExecutor.threads());
+        this.bulkhead = inferenceProperties.bulkhead();
+        this.documentParallelism = inferenceProperties.effectiveDocumentParallelism(inferenceExecutor.threads());
+        this.minParallelSentences = inferenceProperties.minParallelSentences();
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.costEstimator = costEstimator;
+        this.expired = Counter.builder("sentiment.deadline.expired")
+                .description("Requests abandoned because their deadline passed")
+                .register(meterRegistry);
+        this.wasted = Timer.builder("sentiment.deadline.wasted")
+                .description("Analysis time spent on requests that were abandoned before they finished")
+                .register(meterRegistry);
+        this.documentThreads = DistributionSummary.builder("sentiment.document.threads")
+                .description("Inference threads that parsed the sentences of one long document")
+                .register(meterRegistry);
     }
 
     /**
-     * Analyzes the sentiment of the given text.
+     * Analyzes the sentiment of the given text, answering repeated texts from the result cache.
+     * Concurrent calls for the same normalized text share one computation, and computations
+     * beyond the adaptive concurrency limit are rejected.
      * 
      * @param text The text to analyze
      * @return SentimentResult containing sentiment label and confidence scores
+     * @throws OverloadedException if the concurrency limit is reached
      */
     public SentimentResult analyze(String text) {
+        return analyze(text, Deadline.NONE);
+    }
+
+    /**
+     * Analyzes the sentiment of the given text like {@link #analyze(String)}, giving up
+     * once the deadline has passed: before the work leaves a queue, or between sentences.
+     * 
+     * @param text The text to analyze
+     * @param deadline Deadline of the request
+     * @return SentimentResult containing sentiment label and confidence scores
+     * @throws DeadlineExceededException if the deadline passes before the result is ready
+     */
+    public SentimentResult analyze(String text, Deadline deadline) {
+        return analyze(text, deadline, Lane.INTERACTIVE);
+    }
+
+    /**
+     * Analyzes a text in the given inference lane. Only interactive requests count against
+     * the adaptive concurrency limit; bulk work is bounded by its lane.
+     */
+    private SentimentResult analyze(String text, Deadline deadline, Lane lane) {
+        if (text == null || text.isBlank()) {
+            return neutralResult();
+        }
+        String key = resultCache.key(text);
+        SentimentResult cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            deadline.check();
+            return requestCoalescer.execute(key != null ? key : ResultCache.normalize(text), lane, deadline, () -> {
+                SentimentResult result = lane == Lane.INTERACTIVE
+                        ? concurrencyLimiter.call(() -> analyzeSentences(text, true, deadline, lane))
+                        : analyzeSentences(text, true, deadline, lane);
+                resultCache.put(key, result);
+                return result;
+            });
+        } catch (DeadlineExceededException e) {
+            expired.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Analyzes the sentiment of the given text with the full pipeline, bypassing the
+     * result and sentence caches. Used by warm-up and benchmarks, which must not be
+     * served from them.
+     * 
+     * @param text The text to analyze
+     * @return SentimentResult containing sentiment label and confidence scores
+     */
+    public SentimentResult analyzeUncached(String text) {
         if (text == null || text.isBlank()) {
-            return new SentimentResult("neutral", 1.0, new double[]{0, 0, 1, 0, 0});
+            return neutralResult();
         }
+        return analyzeSentences(text, false, Deadline.NONE, Lane.INTERACTIVE);
+    }
 
+    private SentimentResult analyzeSentences(String text, boolean useSentenceCache, Deadline deadline, Lane lane) {
+        if (!bulkhead) {
+            return analyzeSentencesInline(text, useSentenceCache, deadline, false);
+        }
+        // Bulk work is already spread over threads text by text
+        boolean fork = lane == Lane.INTERACTIVE;
+        long cost = lane == Lane.BULK ? costEstimator.nanos(text) : 0;
+        return inferenceExecutor.call(() -> analyzeSentencesInline(text, useSentenceCache, deadline, fork),
+                deadline, lane, cost);
+    }
+
+    private SentimentResult analyzeSentencesInline(String text, boolean useSentenceCache, Deadline deadline,
+                                                   boolean fork) {
+        // Expired work is dropped before it starts
+        deadline.check();
+        long start = System.nanoTime();
         try {
-            Annotation annotation = pipeline.process(text);
-            
-            // Aggregate sentiment across all sentences
-            int totalSentiment = 0;
-            int sentenceCount = 0;
-            double[] aggregatedScores = new double[5]; // very negative, negative, neutral, positive, very positive
-            
-            for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
-                Tree tree = sentence.get(SentimentCoreAnnotations.SentimentAnnotatedTree.class);
-                int sentiment = RNNCoreAnnotations.getPredictedClass(tree);
-                double[] scores = getScoresFromTree(tree);
-                
-                totalSentiment += sentiment;
-                sentenceCount++;
-                
-                // Aggregate scores
-                for (int i = 0; i < 5; i++) {
-                    aggregatedScores[i] += scores[i];
+            MicroBatcher.Scored scored = microBatcher.parseAndScore(
+                    () -> parse(text, useSentenceCache, deadline, fork));
+            return aggregate(scored.sentences(), scored.scores());
+        } catch (DeadlineExceededException e) {
+            wasted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (PipelineUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error analyzing sentiment for text: {}", text, e);
+            return errorResult();
+        }
+    }
+
+    /**
+     * Analyzes one text of a stream without blocking the caller. The call waits in the
+     * bulk lane of the inference executor on a virtual thread.
+     * 
+     * @param text The text to analyze
+     * @param deadline Deadline of the text
+     * @return Future of the SentimentResult
+     */
+    public CompletableFuture<SentimentResult> analyzeAsync(String text, Deadline deadline) {
+        return CompletableFuture.supplyAsync(() -> analyze(text, deadline, Lane.BULK), asyncCallers);
+    }
+
+    /**
+     * Most texts of one batch or stream analyzed at once.
+     */
+    public int batchParallelism() {
+        return batchParallelism;
+    }
+
+    /**
+     * Analyzes many texts in the bulk lane of the inference executor. Uncached texts are
+     * parsed in parallel by one queued worker and by up to batch parallelism - 1 more if
+     * threads are free, and their sentences are scored in one batched RNTN pass. Texts are
+     * parsed in order of decreasing estimated cost, so parallel workers finish together.
+     * The bulk lane orders the batch by its estimated remaining cost, and workers hand
+     * their thread to waiting work that comes first between texts. Cancelling the
+     * returned future stops parsing the remaining texts.
+     * 
+     * @param texts The texts to analyze
+     * @return Future of one SentimentResult per text, in the same order
+     */
+    public CompletableFuture<List<SentimentResult>> analyzeBatchAsync(List<String> texts) {
+        return analyzeBatchAsync(texts, Deadline.NONE);
+    }
+
+    /**
+     * Analyzes many texts like {@link #analyzeBatchAsync(List)}. Once the deadline has
+     * passed, the batch stops between sentences and fails with {@link DeadlineExceededException}.
+     * 
+     * @param texts The texts to analyze
+     * @param deadline Deadline of the whole batch
+     * @return Future of one SentimentResult per text, in the same order
+     */
+    public CompletableFuture<List<SentimentResult>> analyzeBatchAsync(List<String> texts, Deadline deadline) {
+        int size = texts.size();
+        String[] keys = new String[size];
+        SentimentResult[] results = new SentimentResult[size];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank()) {
+                results[i] = neutralResult();
+            } else {
+                keys[i] = resultCache.key(text);
+                results[i] = resultCache.get(keys[i]);
+                if (results[i] == null) {
+                    misses.add(i);
                 }
             }
-            
-            // Average the scores
-            for (int i = 0; i < 5; i++) {
-                aggregatedScores[i] /= sentenceCount;
+        }
+        CompletableFuture<List<SentimentResult>> future = new CompletableFuture<>();
+        if (misses.isEmpty()) {
+            future.complete(Arrays.asList(results));
+            return future;
+        }
+
+        // Longest first: a long text started last would finish long after the others
+        double[] units = new double[size];
+        for (int i : misses) {
+            units[i] = costEstimator.units(texts.get(i));
+        }
+        misses.sort((a, b) -> Double.compare(units[b], units[a]));
+        double[] remainingUnits = new double[misses.size() + 1];
+        for (int m = misses.size() - 1; m >= 0; m--) {
+            remainingUnits[m] = remainingUnits[m + 1] + units[misses.get(m)];
+        }
+
+        // Workers take the next text until none are left, writing sentences by index
+        List<List<CoreMap>> parsed = new ArrayList<>(Collections.nCopies(size, null));
+        AtomicInteger next = new AtomicInteger();
+        // The submitter holds one count until all workers are started; whoever drops it to
+        // zero scores the batch
+        AtomicInteger running = new AtomicInteger(1);
+        AtomicLong parseNanos = new AtomicLong();
+        Runnable finish = () -> {
+            if (running.decrementAndGet() != 0) {
+                return;
+            }
+            if (!future.isDone()) {
+                try {
+                    deadline.check();
+                    future.complete(scoreParsed(misses, parsed, keys, results));
+                } catch (DeadlineExceededException e) {
+                    failBatch(future, e);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+            if (future.isCompletedExceptionally() && parseNanos.get() > 0) {
+                // Cancelled or expired: nobody reads what was parsed
+                wasted.record(parseNanos.get(), TimeUnit.NANOSECONDS);
+            }
+        };
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                boolean requeued = false;
+                try {
+                    int m;
+                    while (!future.isDone() && (m = next.getAndIncrement()) < misses.size()) {
+                        int i = misses.get(m);
+                        long start = System.nanoTime();
+                        try {
+                            deadline.check();
+                            parsed.set(i, parse(texts.get(i), true, deadline, false));
+                            costEstimator.record(units[i], System.nanoTime() - start);
+                        } catch (PipelineUnavailableException | DeadlineExceededException e) {
+                            failBatch(future, e);
+                        } catch (Exception e) {
+                            logger.error("Error analyzing sentiment for text: {}", texts.get(i), e);
+                        } finally {
+                            parseNanos.addAndGet(System.nanoTime() - start);
+                        }
+                        long remaining = costEstimator.nanos(remainingUnits[Math.min(next.get(), misses.size())]);
+                        if (remaining > 0 && inferenceExecutor.shouldYield(Lane.BULK, remaining)) {
+                            // Let waiting work that comes first go ahead and queue the rest of the batch
+                            requeued = requeue(this, remaining);
+                            if (requeued) {
+                                return;
+                            }
+                        }
+                    }
+                } finally {
+                    if (!requeued) {
+                        finish.run();
+                    }
+                }
+            }
+        };
+        // The first worker waits in the bulk queue; more start only if threads are free
+        running.incrementAndGet();
+        try {
+            inferenceExecutor.submit(worker, Lane.BULK, costEstimator.nanos(remainingUnits[0]));
+        } catch (RuntimeException e) {
+            failBatch(future, e);
+            return future;
+        }
+        int workers = Math.min(batchParallelism, misses.size());
+        for (int w = 1; w < workers; w++) {
+            running.incrementAndGet();
+            if (!inferenceExecutor.tryStart(worker, Lane.BULK)) {
+                running.decrementAndGet();
+                break;
+            }
+        }
+        finish.run();
+        return future;
+    }
+
+    private boolean requeue(Runnable worker, long remainingNanos) {
+        try {
+            inferenceExecutor.submit(worker, Lane.BULK, remainingNanos);
+            return true;
+        } catch (PipelineUnavailableException e) {
+            // The bulk queue is full; keep the thread
+            return false;
+        }
+    }
+
+    private void failBatch(CompletableFuture<?> future, RuntimeException e) {
+        if (future.completeExceptionally(e) && e instanceof DeadlineExceededException) {
+            expired.increment();
+        }
+    }
+
+    /**
+     * Scores the sentences of all parsed texts in one pass and fills in their results;
+     * texts that failed to parse or score get an error result.
+     */
+    private List<SentimentResult> scoreParsed(List<Integer> misses, List<List<CoreMap>> parsed,
+                                              String[] keys, SentimentResult[] results) {
+        List<CoreMap> allSentences = new ArrayList<>();
+        for (int i : misses) {
+            if (parsed.get(i) != null) {
+                allSentences.addAll(parsed.get(i));
+            }
+        }
+        List<SentenceScore> allScores;
+        try {
+            allScores = sentenceScorer.scoreAll(allSentences);
+        } catch (Exception e) {
+            logger.error("Error scoring a batch of {} sentences", allSentences.size(), e);
+            allScores = null;
+        }
+
+        int next = 0;
+        for (int i : misses) {
+            List<CoreMap> sentences = parsed.get(i);
+            if (sentences != null && allScores != null) {
+                results[i] = aggregate(sentences, allScores.subList(next, next + sentences.size()));
+                resultCache.put(keys[i], results[i]);
+                next += sentences.size();
+            } else {
+                results[i] = errorResult();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Segments, guards and parses a text on a pooled pipeline worker. Sentences found in
+     * the sentence cache are not parsed. With a deadline, sentences are annotated one at a
+     * time and parsing stops at the first sentence boundary after the deadline. If forking
+     * is allowed, a long document's sentences are parsed in parallel.
+     */
+    private List<CoreMap> parse(String text, boolean useSentenceCache, Deadline deadline, boolean fork) {
+        Annotation annotation = pipelinePool.withPipeline(deadline, pipeline -> {
+            Annotation segmented = pipeline.segment(text);
+            sentenceGuard.limitSentences(segmented);
+            List<CoreMap> sentences = segmented.get(CoreAnnotations.SentencesAnnotation.class);
+            List<CoreMap> misses = useSentenceCache ? sentenceCache.lookup(sentences) : sentences;
+            if (!misses.isEmpty()) {
+                // Annotators work sentence by sentence, so hand them only the uncached ones
+                if (fork && documentParallelism > 1 && misses.size() >= minParallelSentences) {
+                    annotateInParallel(pipeline, segmented, misses, deadline);
+                } else if (deadline.isBounded()) {
+                    annotateEach(pipeline, segmented, misses, new AtomicInteger(), deadline);
+                } else {
+                    segmented.set(CoreAnnotations.SentencesAnnotation.class, misses);
+                    pipeline.annotate(segmented);
+                }
+                segmented.set(CoreAnnotations.SentencesAnnotation.class, sentences);
+            }
+            // Scoring is not worth starting after the deadline either
+            deadline.check();
+            return segmented;
+        });
+        return annotation.get(CoreAnnotations.SentencesAnnotation.class);
+    }
+
+    /**
+     * Parses sentences on the calling thread and on inference threads that are idle right
+     * now, each helper with a pipeline worker of its own. Sentences are handed out one at a
+     * time, so long and short ones balance out. Helpers only start on free threads and the
+     * caller works too, so forking never waits for a thread and cannot deadlock.
+     */
+    private void annotateInParallel(SentencePipeline pipeline, Annotation segmented, List<CoreMap> sentences,
+                                    Deadline deadline) {
+        AtomicInteger next = new AtomicInteger();
+        int helpers = Math.min(documentParallelism, sentences.size()) - 1;
+        List<CompletableFuture<Void>> forks = new ArrayList<>(helpers);
+        for (int h = 0; h < helpers; h++) {
+            // Each thread sets the sentences of its own copy of the document
+            Annotation copy = new Annotation(segmented);
+            CompletableFuture<Void> fork = new CompletableFuture<>();
+            Runnable helper = () -> {
+                try {
+                    pipelinePool.withPipeline(deadline, helperPipeline -> {
+                        annotateEach(helperPipeline, copy, sentences, next, deadline);
+                        return null;
+                    });
+                    fork.complete(null);
+                } catch (Throwable e) {
+                    fork.completeExceptionally(e);
+                }
+            };
+            if (!inferenceExecutor.tryStart(helper, Lane.INTERACTIVE)) {
+                break;
+            }
+            forks.add(fork);
+        }
+        documentThreads.record(forks.size() + 1);
+
+        RuntimeException failure = null;
+        try {
+            annotateEach(pipeline, segmented, sentences, next, deadline);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (CompletableFuture<Void> fork : forks) {
+            if (failure != null) {
+                // Helpers stop after their current sentence
+                next.set(sentences.size());
+            }
+            try {
+                fork.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Annotates the sentences not yet claimed by another thread one at a time, checking the
+     * deadline before each.
+     */
+    private static void annotateEach(SentencePipeline pipeline, Annotation annotation, List<CoreMap> sentences,
+                                     AtomicInteger next, Deadline deadline) {
+        for (int s = next.getAndIncrement(); s < sentences.size(); s = next.getAndIncrement()) {
+            deadline.check();
+            annotation.set(CoreAnnotations.SentencesAnnotation.class, List.of(sentences.get(s)));
+            pipeline.annotate(annotation);
+        }
+    }
+
+    /**
+     * Combines per-sentence scores into a document result.
+     */
+    private SentimentResult aggregate(List<CoreMap> sentences, List<SentenceScore> sentenceScores) {
+        // Aggregate sentiment across all sentences
+        boolean fallback = false;
+        int totalSentiment = 0;
+        int sentenceCount = 0;
+        double[] aggregatedScores = new double[5]; // very negative, negative, neutral, positive, very positive
+        
+        for (int s = 0; s < sentences.size(); s++) {
+            SentenceScore score = sentenceScores.get(s);
+            int sentiment = score.predictedClass();
+            double[] scores = score.scores();
+            if (sentenceGuard.isFallback(sentences.get(s))) {
+                fallback = true;
+            } else {
+                sentenceCache.put(sentences.get(s), score);
             }
             
-            // Calculate average sentiment
-            double avgSentiment = (double) totalSentiment / sentenceCount;
-            String label = getSentimentLabel(avgSentiment);
-            double confidence = aggregatedScores[(int) Math.round(avgSentiment)];
-            
-            return new SentimentResult(label, confidence, aggregatedScores);
+            totalSentiment += sentiment;
+            sentenceCount++;
             
-        } catch (Exception e) {
-            logger.error("Error analyzing sentiment for text: {}", text, e);
-            return new SentimentResult("error", 0.0, new double[]{0, 0, 0, 0, 0});
+            // Aggregate scores
+            for (int i = 0; i < 5; i++) {
+                aggregatedScores[i] += scores[i];
+            }
+        }
+        
+        // Average the scores
+        for (int i = 0; i < 5; i++) {
+            aggregatedScores[i] /= sentenceCount;
         }
+        
+        // Calculate average sentiment
+        double avgSentiment = (double) totalSentiment / sentenceCount;
+        String label = getSentimentLabel(avgSentiment);
+        double confidence = aggregatedScores[(int) Math.round(avgSentiment)];
+        
+        return new SentimentResult(label, confidence, aggregatedScores, fallback);
+    }
+
+    private static SentimentResult neutralResult() {
+        return new SentimentResult("neutral", 1.0, new double[]{0, 0, 1, 0, 0}, false);
+    }
+
+    private static SentimentResult errorResult() {
+        return new SentimentResult("error", 0.0, new double[]{0, 0, 0, 0, 0}, false);
     }
 
     /**
      * Classifies text into simple sentiment categories.
      * 
      * @param text The text to classify
+     * @param deadline Deadline of the request
      * @return Sentiment label: "positive", "negative", or "neutral"
      */
-    public String classify(String text) {
-        SentimentResult result = analyze(text);
+    public String classify(String text, Deadline deadline) {
+        SentimentResult result = analyze(text, deadline);
         return result.sentiment();
     }
 
-    private double[] getScoresFromTree(Tree tree) {
-        double[] scores = new double[5];
-        for (int i = 0; i < 5; i++) {
-            scores[i] = RNNCoreAnnotations.getPredictions(tree).get(i);
-        }
-        return scores;
-    }
-
     private String getSentimentLabel(double sentiment) {
         // Stanford CoreNLP uses 0-4 scale:
         // 0 = very negative, 1 = negative, 2 = neutral, 3 = positive, 4 = very positive
@@ -123,7 +574,8 @@ public class SentimentService {
      * @param sentiment The sentiment label
      * @param confidence The confidence score for the prediction
      * @param scores Array of probabilities for each sentiment class [very negative, negative, neutral, positive, very positive]
+     * @param fallback Whether any sentence was split, truncated or scored without a full parse
      */
-    public record SentimentResult(String sentiment, double confidence, double[] scores) {
+    public record SentimentResult(String sentiment, double confidence, double[] scores, boolean fallback) {
     }
 }
@@ -0,0 +1,117 @@
+package com.example.sentimentapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Estimates how long a text takes to analyze, before it is tokenized.
+ *
+ * Sentences and tokens are counted with a cheap character scan: a sentence ends at
+ * '.', '!' or '?' followed by whitespace, and a token is a run of letters and digits or
+ * a single other character. Parsing dominates and grows with the cube of the sentence
+ * length, so each sentence costs tokens^3, with longer sentences counted as the pieces
+ * the {@link SentenceGuard} cuts them into. Tokenizing and scoring add a cost per
+ * character and per sentence. Units are converted to time with the parse time per
+ * unit observed so far.
+ */
+@Component
+public class TextCostEstimator {
+
+    private static final double CHAR_UNITS = 1;
+    private static final double SENTENCE_UNITS = 1000;
+    private static final double INITIAL_NANOS_PER_UNIT = 2000;
+    // Weight of the newest observation in the moving averages
+    private static final double DECAY = 0.05;
+
+    private final SentenceGuardProperties guardProperties;
+    private double units = 1;
+    private double nanos = INITIAL_NANOS_PER_UNIT;
+
+    public TextCostEstimator(SentenceGuardProperties guardProperties, MeterRegistry meterRegistry) {
+        this.guardProperties = guardProperties;
+        Gauge.builder("sentiment.cost.nanos.per.unit", this, TextCostEstimator::nanosPerUnit)
+                .description("Observed analysis time per unit of estimated text cost")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Estimated cost of a text in abstract units.
+     */
+    public double units(String text) {
+        if (text == null) {
+            return 0;
+        }
+        double cost = CHAR_UNITS * text.length();
+        int tokens = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (!inWord) {
+                    tokens++;
+                    inWord = true;
+                }
+                continue;
+            }
+            inWord = false;
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            tokens++;
+            boolean end = c == '.' || c == '!' || c == '?';
+            if (end && (i + 1 == text.length() || Character.isWhitespace(text.charAt(i + 1)))) {
+                cost += sentenceUnits(tokens);
+                tokens = 0;
+            }
+        }
+        if (tokens > 0) {
+            cost += sentenceUnits(tokens);
+        }
+        return cost;
+    }
+
+    /**
+     * Estimated analysis time of a text.
+     */
+    public long nanos(String text) {
+        return (long) (units(text) * nanosPerUnit());
+    }
+
+    /**
+     * Estimated analysis time of a cost in units.
+     */
+    public long nanos(double units) {
+        return (long) (units * nanosPerUnit());
+    }
+
+    /**
+     * Feeds the measured analysis time of a text back into the time per unit.
+     */
+    public synchronized void record(double estimatedUnits, long elapsedNanos) {
+        if (estimatedUnits <= 0) {
+            return;
+        }
+        units += DECAY * (estimatedUnits - units);
+        nanos += DECAY * (elapsedNanos - nanos);
+    }
+
+    public synchronized double nanosPerUnit() {
+        return nanos / units;
+    }
+
+    private double sentenceUnits(int tokens) {
+        int max = guardProperties.maxTokens();
+        if (tokens <= max) {
+            return SENTENCE_UNITS + Math.pow(tokens, 3);
+        }
+        return switch (guardProperties.strategy()) {
+            // Pieces of at most max tokens each
+            case SPLIT -> SENTENCE_UNITS * Math.ceil((double) tokens / max)
+                    + Math.pow(max, 3) * (tokens / max) + Math.pow(tokens % max, 3);
+            case TRUNCATE -> SENTENCE_UNITS + Math.pow(max, 3);
+            // Flat trees are built and scored in linear time
+            case FALLBACK -> SENTENCE_UNITS + tokens;
+        };
+    }
+}
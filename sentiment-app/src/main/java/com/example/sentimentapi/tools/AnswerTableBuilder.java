@@ -0,0 +1,91 @@
+package com.example.sentimentapi.tools;
+
+import com.example.sentimentapi.SentimentApiApplication;
+import com.example.sentimentapi.answers.AnswerTableFile;
+import com.example.sentimentapi.service.ModelFingerprint;
+import com.example.sentimentapi.service.SentimentService;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a precomputed answer table from the most frequent inputs.
+ *
+ * The corpus has one text per line, either already ranked by frequency or as
+ * {@code count<TAB>text}, in which case it is ranked by count. The top texts are run
+ * through the pipeline with the application's configuration (so set the same
+ * {@code sentiment.*} properties as the deployment), and results that hit an error
+ * or a guard fallback are left out.
+ *
+ * Usage: {@code AnswerTableBuilder <corpus> <output.answers> [top-n]}
+ */
+public final class AnswerTableBuilder {
+
+    private AnswerTableBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: AnswerTableBuilder <corpus> <output" + AnswerTableFile.EXTENSION
+                    + "> [top-n]");
+            System.exit(2);
+        }
+        Path output = Path.of(args[1]);
+        int topN = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        List<String> texts = readRanked(Path.of(args[0])).stream().limit(topN).toList();
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SentimentApiApplication.class)
+                .web(WebApplicationType.NONE)
+                // As arguments, which take precedence over application.yml
+                .run("--sentiment.warmup.enabled=false")) {
+            SentimentService service = context.getBean(SentimentService.class);
+            Map<String, SentimentResult> results = new LinkedHashMap<>();
+            int skipped = 0;
+            for (String text : texts) {
+                SentimentResult result = service.analyzeUncached(text);
+                if (result.fallback() || "error".equals(result.sentiment())) {
+                    skipped++;
+                } else {
+                    results.putIfAbsent(text, result);
+                }
+            }
+            String fingerprint = context.getBean(ModelFingerprint.class).value();
+            int written = AnswerTableFile.write(results, fingerprint, output);
+            System.out.printf("Wrote %s: %d texts (%d skipped), model %s, %d bytes%n",
+                    output, written, skipped, fingerprint, Files.size(output));
+        }
+        // CoreNLP's parse timeout can leave a non-daemon pool thread behind
+        System.exit(0);
+    }
+
+    private static List<String> readRanked(Path path) throws IOException {
+        List<Ranked> ranked = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int tab = line.indexOf('\t');
+            if (tab > 0 && line.substring(0, tab).trim().chars().allMatch(Character::isDigit)) {
+                ranked.add(new Ranked(Long.parseLong(line.substring(0, tab).trim()), line.substring(tab + 1)));
+            } else {
+                // Unranked lines keep file order
+                ranked.add(new Ranked(Long.MAX_VALUE - ranked.size(), line));
+            }
+        }
+        ranked.sort(Comparator.comparingLong(Ranked::count).reversed());
+        return ranked.stream().map(Ranked::text).toList();
+    }
+
+    private record Ranked(long count, String text) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.sentimentapi.tools;
+
+import com.example.sentimentapi.SentimentApiApplication;
+import com.example.sentimentapi.service.ParserEngine;
+import com.example.sentimentapi.service.SentimentService;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command-line report comparing sentiment accuracy and latency across parser engines.
+ *
+ * The corpus has one document per line, either plain text or {@code label<TAB>text}
+ * where label is negative/neutral/positive or a 0-4 score. Labels enable accuracy;
+ * without them only latency and agreement with the first engine are reported.
+ *
+ * Usage: {@code ParserComparisonReport <corpus> [pcfg,shift-reduce,shift-reduce-beam]}
+ */
+public final class ParserComparisonReport {
+
+    private ParserComparisonReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ParserComparisonReport <corpus> [engine,engine,...]");
+            System.exit(2);
+        }
+        List<Document> corpus = readCorpus(Path.of(args[0]));
+        List<ParserEngine> engines = args.length > 1
+                ? Arrays.stream(args[1].split(","))
+                    .map(name -> ParserEngine.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_')))
+                    .toList()
+                : List.of(ParserEngine.values());
+
+        List<String> baseline = null;
+        System.out.println("| engine | docs | accuracy | agreement | mean ms | p50 ms | p95 ms | p99 ms |");
+        System.out.println("|---|---|---|---|---|---|---|---|");
+        for (ParserEngine engine : engines) {
+            EngineRun run = runEngine(engine, corpus);
+            if (baseline == null) {
+                baseline = run.labels();
+            }
+            System.out.printf(Locale.ROOT, "| %s | %d | %s | %.2f%% | %.1f | %.1f | %.1f | %.1f |%n",
+                    engine, corpus.size(), formatAccuracy(run.labels(), corpus),
+                    agreement(run.labels(), baseline) * 100,
+                    mean(run.latenciesMs()), percentile(run.latenciesMs(), 0.50),
+                    percentile(run.latenciesMs(), 0.95), percentile(run.latenciesMs(), 0.99));
+        }
+        // CoreNLP's parse timeout can leave a non-daemon pool thread behind
+        System.exit(0);
+    }
+
+    private static EngineRun runEngine(ParserEngine engine, List<Document> corpus) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SentimentApiApplication.class)
+                .web(WebApplicationType.NONE)
+                // As arguments, which take precedence over application.yml
+                .run("--sentiment.parser.engine=" + engine.name(), "--sentiment.pool.size=1",
+                        "--sentiment.warmup.enabled=false")) {
+            SentimentService service = context.getBean(SentimentService.class);
+            // Warm up the JIT so the first engine is not penalized
+            corpus.stream().limit(50).forEach(doc -> service.analyzeUncached(doc.text()));
+
+            List<String> labels = new ArrayList<>(corpus.size());
+            double[] latencies = new double[corpus.size()];
+            for (int i = 0; i < corpus.size(); i++) {
+                long start = System.nanoTime();
+                SentimentResult result = service.analyzeUncached(corpus.get(i).text());
+                latencies[i] = (System.nanoTime() - start) / 1_000_000.0;
+                labels.add(result.sentiment());
+            }
+            return new EngineRun(labels, latencies);
+        }
+    }
+
+    private static List<Document> readCorpus(Path path) throws IOException {
+        List<Document> corpus = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                corpus.add(new Document(normalizeLabel(line.substring(0, tab).trim()), line.substring(tab + 1)));
+            } else {
+                corpus.add(new Document(null, line));
+            }
+        }
+        return corpus;
+    }
+
+    private static String normalizeLabel(String label) {
+        return switch (label.toLowerCase(Locale.ROOT)) {
+            case "0", "1", "negative", "very negative" -> "negative";
+            case "2", "neutral" -> "neutral";
+            case "3", "4", "positive", "very positive" -> "positive";
+            default -> null;
+        };
+    }
+
+    private static String formatAccuracy(List<String> labels, List<Document> corpus) {
+        int labelled = 0;
+        int correct = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            String gold = corpus.get(i).label();
+            if (gold != null) {
+                labelled++;
+                if (gold.equals(labels.get(i))) {
+                    correct++;
+                }
+            }
+        }
+        return labelled == 0 ? "n/a" : String.format(Locale.ROOT, "%.2f%%", 100.0 * correct / labelled);
+    }
+
+    private static double agreement(List<String> labels, List<String> baseline) {
+        int same = 0;
+        for (int i = 0; i < labels.size(); i++) {
+            if (labels.get(i).equals(baseline.get(i))) {
+                same++;
+            }
+        }
+        return labels.isEmpty() ? 1.0 : (double) same / labels.size();
+    }
+
+    private static double mean(double[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    private static double percentile(double[] values, double p) {
+        if (values.length == 0) {
+            return 0;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private record Document(String label, String text) {
+    }
+
+    private record EngineRun(List<String> labels, double[] latenciesMs) {
+    }
+}
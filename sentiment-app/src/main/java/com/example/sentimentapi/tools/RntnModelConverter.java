@@ -0,0 +1,113 @@
+package com.example.sentimentapi.tools;
+
+import com.example.sentimentapi.SentimentApiApplication;
+import com.example.sentimentapi.rntn.RntnModelFile;
+import com.example.sentimentapi.rntn.RntnPrecision;
+import com.example.sentimentapi.rntn.RntnWeights;
+import com.example.sentimentapi.service.SentimentService;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import edu.stanford.nlp.sentiment.SentimentModel;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converts a CoreNLP sentiment model to a {@code .rntn} file and reports how far the
+ * converted model's results drift from the original.
+ *
+ * With a corpus (one document per line, optionally {@code label<TAB>text}) every
+ * document is analyzed once with each model and the differences between the
+ * {@link SentimentResult}s are printed as a Markdown table.
+ *
+ * Usage: {@code RntnModelConverter <source-model> <output.rntn> [float64|float32|int8] [corpus]}
+ */
+public final class RntnModelConverter {
+
+    private RntnModelConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !RntnModelFile.isModelFile(args[1])) {
+            System.err.println("Usage: RntnModelConverter <source-model> <output" + RntnModelFile.EXTENSION
+                    + "> [float64|float32|int8] [corpus]");
+            System.exit(2);
+        }
+        String source = args[0];
+        Path output = Path.of(args[1]);
+        RntnPrecision precision = args.length > 2
+                ? RntnPrecision.valueOf(args[2].toUpperCase(Locale.ROOT))
+                : RntnPrecision.FLOAT32;
+
+        RntnWeights original = RntnWeights.from(SentimentModel.loadSerialized(source));
+        RntnModelFile.write(original, precision, output);
+        RntnWeights converted = RntnModelFile.read(output);
+        System.out.printf(Locale.ROOT, "Wrote %s: %d words, %s, file %d KB, word vectors %d KB (was %d KB)%n",
+                output, converted.vocabularySize(), precision, Files.size(output) / 1024,
+                converted.leafBytes() / 1024, original.leafBytes() / 1024);
+
+        if (args.length > 3) {
+            List<String> corpus = readCorpus(Path.of(args[3]));
+            List<SentimentResult> baseline = analyze(source, corpus);
+            List<SentimentResult> candidate = analyze(output.toString(), corpus);
+            printDivergence(precision, baseline, candidate);
+            // CoreNLP's parse timeout can leave a non-daemon pool thread behind
+            System.exit(0);
+        }
+    }
+
+    private static List<SentimentResult> analyze(String model, List<String> corpus) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SentimentApiApplication.class)
+                .web(WebApplicationType.NONE)
+                // As arguments, which take precedence over application.yml and the environment
+                .run("--sentiment.rntn.evaluator=flat", "--sentiment.rntn.model=" + model,
+                        "--sentiment.pool.size=1", "--sentiment.warmup.enabled=false")) {
+            SentimentService service = context.getBean(SentimentService.class);
+            return corpus.stream().map(service::analyzeUncached).toList();
+        }
+    }
+
+    private static void printDivergence(RntnPrecision precision, List<SentimentResult> baseline,
+                                        List<SentimentResult> candidate) {
+        int sameLabel = 0;
+        double sumScoreDiff = 0;
+        double maxScoreDiff = 0;
+        double maxConfidenceDiff = 0;
+        int scoreCount = 0;
+        for (int i = 0; i < baseline.size(); i++) {
+            SentimentResult expected = baseline.get(i);
+            SentimentResult actual = candidate.get(i);
+            if (expected.sentiment().equals(actual.sentiment())) {
+                sameLabel++;
+            }
+            maxConfidenceDiff = Math.max(maxConfidenceDiff, Math.abs(expected.confidence() - actual.confidence()));
+            for (int c = 0; c < expected.scores().length; c++) {
+                double diff = Math.abs(expected.scores()[c] - actual.scores()[c]);
+                sumScoreDiff += diff;
+                maxScoreDiff = Math.max(maxScoreDiff, diff);
+                scoreCount++;
+            }
+        }
+        System.out.println("| precision | docs | label agreement | mean abs score diff | max abs score diff | max confidence diff |");
+        System.out.println("|---|---|---|---|---|---|");
+        System.out.printf(Locale.ROOT, "| %s | %d | %.2f%% | %.2e | %.2e | %.2e |%n",
+                precision, baseline.size(), baseline.isEmpty() ? 100.0 : 100.0 * sameLabel / baseline.size(),
+                scoreCount == 0 ? 0 : sumScoreDiff / scoreCount, maxScoreDiff, maxConfidenceDiff);
+    }
+
+    private static List<String> readCorpus(Path path) throws IOException {
+        List<String> corpus = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (!line.isBlank()) {
+                corpus.add(line.substring(line.indexOf('\t') + 1));
+            }
+        }
+        return corpus;
+    }
+}
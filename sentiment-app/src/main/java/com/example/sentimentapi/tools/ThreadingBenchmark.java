@@ -0,0 +1,169 @@
+package com.example.sentimentapi.tools;
+
+import com.example.sentimentapi.SentimentApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command-line benchmark comparing request handling on Tomcat platform threads, with
+ * NLP work on the request thread, against virtual request threads with the inference
+ * bulkhead.
+ *
+ * For each model the app is started on a random port. A number of slow clients then
+ * open streaming requests and trickle one byte per second, holding their connections
+ * open as slow uploads do. Closed-loop clients meanwhile send single-text requests for
+ * corpus lines, with a numbered suffix so no result is cached, and back off for
+ * Retry-After when they are shed. Throughput, latency
+ * percentiles and 503 answers of the fast clients are printed as a Markdown table.
+ *
+ * Usage: {@code ThreadingBenchmark <corpus> [seconds] [clients] [slow-clients]}
+ */
+public final class ThreadingBenchmark {
+
+    private static final int WARMUP_SECONDS = 10;
+
+    private ThreadingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ThreadingBenchmark <corpus> [seconds] [clients] [slow-clients]");
+            System.exit(2);
+        }
+        List<String> corpus = Files.readAllLines(Path.of(args[0])).stream().filter(line -> !line.isBlank()).toList();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int slowClients = args.length > 3 ? Integer.parseInt(args[3]) : 250;
+
+        System.out.println("| model | slow clients | requests | req/s | p50 ms | p99 ms | 503s |");
+        System.out.println("|---|---|---|---|---|---|---|");
+        run("platform threads, inline", corpus, seconds, clients, slowClients,
+                "spring.threads.virtual.enabled=false", "sentiment.inference.bulkhead=false");
+        run("virtual threads, bulkhead", corpus, seconds, clients, slowClients,
+                "spring.threads.virtual.enabled=true", "sentiment.inference.bulkhead=true");
+        // CoreNLP's parse timeout can leave a non-daemon pool thread behind
+        System.exit(0);
+    }
+
+    private static void run(String model, List<String> corpus, int seconds, int clients, int slowClients,
+                            String... properties) throws Exception {
+        List<String> all = new ArrayList<>(List.of(properties));
+        all.addAll(List.of("server.port=0", "management.server.port=-1", "sentiment.warmup.enabled=false",
+                "sentiment.cache.enabled=false", "sentiment.sentence-cache.enabled=false"));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SentimentApiApplication.class)
+                // As arguments, which take precedence over application.yml
+                .run(all.stream().map(property -> "--" + property).toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            load(port, corpus, WARMUP_SECONDS, clients, 0);
+            Load load = load(port, corpus, seconds, clients, slowClients);
+            double[] latencies = load.latenciesMs();
+            System.out.printf(Locale.ROOT, "| %s | %d | %d | %.1f | %.1f | %.1f | %d |%n",
+                    model, slowClients, latencies.length, latencies.length / (double) seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), load.unavailable());
+        }
+    }
+
+    private static Load load(int port, List<String> corpus, int seconds, int clients, int slowClients)
+            throws Exception {
+        List<Socket> slow = new ArrayList<>(slowClients);
+        for (int i = 0; i < slowClients; i++) {
+            Socket socket = new Socket("localhost", port);
+            socket.getOutputStream().write(("POST /api/sentiment/stream HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Type: application/x-ndjson\r\nContent-Length: 1000000\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            slow.add(socket);
+        }
+        ScheduledExecutorService trickle = Executors.newSingleThreadScheduledExecutor();
+        trickle.scheduleAtFixedRate(() -> slow.forEach(ThreadingBenchmark::trickle), 1, 1, TimeUnit.SECONDS);
+
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ConcurrentLinkedQueue<Double> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger unavailable = new AtomicInteger();
+        AtomicLong sequence = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                workers.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long n = sequence.incrementAndGet();
+                        String text = corpus.get((int) (n % corpus.size())) + " " + n;
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                                        + "/api/sentiment?text=" + URLEncoder.encode(text, StandardCharsets.UTF_8)))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latencies.add((System.nanoTime() - start) / 1_000_000.0);
+                            } else if (response.statusCode() == 503) {
+                                unavailable.incrementAndGet();
+                                // Back off as a well-behaved client would
+                                long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(0);
+                                Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+                            }
+                        } catch (IOException e) {
+                            unavailable.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        } finally {
+            trickle.shutdownNow();
+            for (Socket socket : slow) {
+                socket.close();
+            }
+        }
+        return new Load(latencies.stream().mapToDouble(Double::doubleValue).toArray(), unavailable.get());
+    }
+
+    private static void trickle(Socket socket) {
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write(' ');
+            out.flush();
+        } catch (IOException e) {
+            // The server closed the connection; nothing left to hold open
+        }
+    }
+
+    private static double percentile(double[] values, double p) {
+        if (values.length == 0) {
+            return 0;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private record Load(double[] latenciesMs, int unavailable) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.sentimentapi.web;
+
+import com.example.sentimentapi.service.DeadlineExceededException;
+import com.example.sentimentapi.service.OverloadedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps service exceptions that need more than a status code to HTTP responses.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * Answers shed requests with 503 and a Retry-After header, so clients back off.
+     */
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<ProblemDetail> overloaded(OverloadedException e) {
+        long seconds = Math.max(1, (e.retryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+
+    /**
+     * Answers requests whose deadline passed with 503; no Retry-After, as the same request
+     * would need a longer timeout rather than a later attempt.
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<ProblemDetail> deadlineExceeded(DeadlineExceededException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+}
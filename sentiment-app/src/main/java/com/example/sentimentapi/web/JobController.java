@@ -0,0 +1,102 @@
+package com.example.sentimentapi.web;
+
+import com.example.sentimentapi.jobs.BulkJobService;
+import com.example.sentimentapi.jobs.JobStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * REST controller for asynchronous bulk jobs.
+ * A JSONL input is submitted once, its progress polled, and its results downloaded
+ * as JSONL when the job has completed.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = {"http://127.0.0.1:5500", "http://localhost:5500"})
+public class JobController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final BulkJobService bulkJobService;
+
+    public JobController(BulkJobService bulkJobService) {
+        this.bulkJobService = bulkJobService;
+    }
+
+    /**
+     * Submits a job.
+     * 
+     * @param request Request whose body holds one JSON object such as {"text": "..."} per line
+     * @return The new job's status, with its location
+     */
+    @PostMapping(consumes = NDJSON)
+    public ResponseEntity<JobStatus> submit(HttpServletRequest request) throws IOException {
+        requireEnabled();
+        JobStatus status = bulkJobService.submit(request.getInputStream());
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + status.id())).body(status);
+    }
+
+    /**
+     * Reports a job's progress.
+     * 
+     * @param id Job id
+     * @return The job's status
+     */
+    @GetMapping("/{id}")
+    public JobStatus status(@PathVariable String id) {
+        requireEnabled();
+        JobStatus status = bulkJobService.status(id);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No job " + id);
+        }
+        return status;
+    }
+
+    /**
+     * Downloads the results of a completed job: one JSON object per input line, in input order.
+     * 
+     * @param id Job id
+     * @return The results file
+     */
+    @GetMapping("/{id}/results")
+    public ResponseEntity<Resource> results(@PathVariable String id) {
+        JobStatus status = status(id);
+        Path results = bulkJobService.results(id);
+        if (results == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Job " + id + " is " + status.state());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(new FileSystemResource(results));
+    }
+
+    /**
+     * Deletes a job with its input and results, stopping it if it is still running.
+     * 
+     * @param id Job id
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id) throws IOException {
+        requireEnabled();
+        if (!bulkJobService.delete(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No job " + id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private void requireEnabled() {
+        if (!bulkJobService.enabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Bulk jobs are disabled");
+        }
+    }
+}
@@ -1,26 +1,74 @@
 package com.example.sentimentapi.web;
 
+import com.example.sentimentapi.answers.AnswerTable;
+import com.example.sentimentapi.service.BatchProperties;
+import com.example.sentimentapi.service.Deadline;
+import com.example.sentimentapi.service.DeadlineProperties;
 import com.example.sentimentapi.service.SentimentService;
 import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * REST controller for sentiment analysis endpoints.
- * Provides both simple and detailed sentiment analysis.
+ * Provides both simple and detailed sentiment analysis. Texts in the precomputed
+ * answer table are answered without any NLP work. Clients may bound the time they wait
+ * with an X-Request-Timeout header, such as "2s" or "1500" (milliseconds); analysis
+ * still running when it expires is abandoned.
  */
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = {"http://127.0.0.1:5500", "http://localhost:5500"})
 public class SentimentController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
     private final SentimentService sentimentService;
+    private final AnswerTable answerTable;
+    private final BatchProperties batchProperties;
+    private final DeadlineProperties deadlineProperties;
+    private final Counter cancelledBatches;
+    private final ObjectMapper objectMapper;
 
-    public SentimentController(SentimentService sentimentService) {
+    public SentimentController(SentimentService sentimentService, AnswerTable answerTable,
+                               BatchProperties batchProperties, DeadlineProperties deadlineProperties,
+                               MeterRegistry meterRegistry, ObjectMapper objectMapper) {
         this.sentimentService = sentimentService;
+        this.answerTable = answerTable;
+        this.batchProperties = batchProperties;
+        this.deadlineProperties = deadlineProperties;
+        this.cancelledBatches = Counter.builder("sentiment.batch.cancelled")
+                .description("Batch requests cancelled because the client disconnected or the batch timed out")
+                .register(meterRegistry);
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -28,11 +76,16 @@ public class SentimentController {
      * Returns just the sentiment label.
      * 
      * @param text The text to analyze
+     * @param timeoutHeader Optional request timeout
      * @return Sentiment label: positive, negative, or neutral
      */
     @GetMapping("/sentiment")
-    public Map<String, String> getSentiment(@RequestParam String text) {
-        String sentiment = sentimentService.classify(text);
+    public Map<String, String> getSentiment(@RequestParam String text,
+            @RequestHeader(name = TIMEOUT_HEADER, required = false) String timeoutHeader) {
+        SentimentResult answer = answerTable.lookup(text);
+        String sentiment = answer != null
+                ? answer.sentiment()
+                : sentimentService.classify(text, deadline(timeoutHeader));
         return Map.of("sentiment", sentiment, "text", text);
     }
 
@@ -41,16 +94,22 @@ public class SentimentController {
      * Returns sentiment with confidence scores and probability distribution.
      * 
      * @param text The text to analyze
+     * @param timeoutHeader Optional request timeout
      * @return Detailed sentiment analysis result
      */
     @GetMapping("/sentiment/detailed")
-    public ResponseEntity<Map<String, Object>> getDetailedSentiment(@RequestParam String text) {
-        SentimentResult result = sentimentService.analyze(text);
+    public ResponseEntity<Map<String, Object>> getDetailedSentiment(@RequestParam String text,
+            @RequestHeader(name = TIMEOUT_HEADER, required = false) String timeoutHeader) {
+        SentimentResult answer = answerTable.lookup(text);
+        SentimentResult result = answer != null
+                ? answer
+                : sentimentService.analyze(text, deadline(timeoutHeader));
         
         Map<String, Object> response = new HashMap<>();
         response.put("text", text);
         response.put("sentiment", result.sentiment());
         response.put("confidence", String.format("%.2f%%", result.confidence() * 100));
+        response.put("fallback", result.fallback());
         
         Map<String, String> scores = new HashMap<>();
         scores.put("veryNegative", String.format("%.2f%%", result.scores()[0] * 100));
@@ -66,34 +125,206 @@ public class SentimentController {
 
     /**
      * Batch sentiment analysis endpoint.
-     * Analyzes multiple texts in a single request.
+     * Analyzes multiple texts in a single request, parsing them in parallel and scoring all
+     * their sentences in one batched pass. The work is cancelled if the client disconnects
+     * or the batch times out. A timeout header can only shorten the batch timeout.
      * 
      * @param request Request body containing an array of texts
-     * @return Array of sentiment results
+     * @param timeoutHeader Optional request timeout
+     * @return Array of sentiment results, in the order of the texts
      */
     @PostMapping("/sentiment/batch")
-    public ResponseEntity<Map<String, Object>> analyzeBatch(@RequestBody BatchRequest request) {
-        Map<String, Object> response = new HashMap<>();
-        var results = request.texts().stream()
-            .map(text -> {
-                SentimentResult result = sentimentService.analyze(text);
-                Map<String, Object> item = new HashMap<>();
-                item.put("text", text);
-                item.put("sentiment", result.sentiment());
-                item.put("confidence", result.confidence());
-                return item;
-            })
-            .toList();
+    public DeferredResult<ResponseEntity<Map<String, Object>>> analyzeBatch(@RequestBody BatchRequest request,
+            @RequestHeader(name = TIMEOUT_HEADER, required = false) String timeoutHeader) {
+        Duration requested = timeout(timeoutHeader, batchProperties.timeout());
+        Duration timeout = requested.compareTo(batchProperties.timeout()) < 0 ? requested : batchProperties.timeout();
+        List<String> texts = request.texts();
+        if (texts.size() > batchProperties.maxTexts()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A batch holds at most " + batchProperties.maxTexts() + " texts");
+        }
+
+        // Answer texts from the answer table where possible and analyze the rest
+        List<SentimentResult> answers = new ArrayList<>(texts.size());
+        List<String> remaining = new ArrayList<>();
+        for (String text : texts) {
+            SentimentResult answer = answerTable.lookup(text);
+            answers.add(answer);
+            if (answer == null) {
+                remaining.add(text);
+            }
+        }
+        CompletableFuture<List<SentimentResult>> analysis = remaining.isEmpty()
+                ? CompletableFuture.completedFuture(List.of())
+                : sentimentService.analyzeBatchAsync(remaining, Deadline.after(timeout));
+
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>(timeout.toMillis());
+        deferred.onTimeout(() -> {
+            deferred.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Batch did not finish within " + timeout));
+            cancel(analysis);
+        });
+        deferred.onError(e -> cancel(analysis));
+        analysis.whenComplete((analyzed, e) -> {
+            if (e != null) {
+                deferred.setErrorResult(e instanceof CompletionException ? e.getCause() : e);
+            } else {
+                deferred.setResult(ResponseEntity.ok(batchResponse(texts, answers, analyzed)));
+            }
+        });
+        return deferred;
+    }
+
+    /**
+     * Streaming batch endpoint.
+     * Reads newline-delimited JSON objects such as {"text": "..."} and writes one result
+     * line per input, in input order, as soon as it and all earlier ones are ready. At most
+     * twice the batch parallelism texts are in flight; while the window is full, no more
+     * input is read, so a large stream neither fills the heap nor the inference queue.
+     * If the client goes away, writing fails and the deadlines of the texts still in flight
+     * are cancelled, so they stop before their next sentence or leave their queue unstarted.
+     * A timeout header applies to each line from the time it is read.
+     * 
+     * @param request Request whose body holds one JSON object per line
+     * @param response Response receiving one JSON object per line
+     */
+    @PostMapping(value = "/sentiment/stream", consumes = NDJSON)
+    public void streamSentiment(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Duration timeout = timeout(request.getHeader(TIMEOUT_HEADER), deadlineProperties.defaultTimeout());
+        response.setContentType(NDJSON);
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        // The servlet writer swallows I/O errors; the stream reports a client that went away
+        OutputStream out = response.getOutputStream();
+        int window = 2 * sentimentService.batchParallelism();
+        Deque<StreamItem> inFlight = new ArrayDeque<>(window);
+        try {
+            int index = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                while (inFlight.size() >= window) {
+                    writeStreamItem(inFlight.poll(), out);
+                    out.flush();
+                }
+                inFlight.add(submitStreamItem(index++, line, Deadline.after(timeout)));
+                boolean written = false;
+                while (!inFlight.isEmpty() && inFlight.peek().result().isDone()) {
+                    writeStreamItem(inFlight.poll(), out);
+                    written = true;
+                }
+                if (written) {
+                    out.flush();
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeStreamItem(inFlight.poll(), out);
+                out.flush();
+            }
+        } finally {
+            if (!inFlight.isEmpty()) {
+                cancelledBatches.increment();
+            }
+            inFlight.forEach(item -> item.deadline().cancel());
+        }
+    }
+
+    private StreamItem submitStreamItem(int index, String line, Deadline deadline) {
+        String text;
+        try {
+            text = objectMapper.readValue(line, StreamLine.class).text();
+        } catch (JsonProcessingException e) {
+            text = null;
+        }
+        if (text == null) {
+            return new StreamItem(index, null, deadline, CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Line " + (index + 1) + " is not a JSON object with a text")));
+        }
+        SentimentResult answer = answerTable.lookup(text);
+        return new StreamItem(index, text, deadline, answer != null
+                ? CompletableFuture.completedFuture(answer)
+                : sentimentService.analyzeAsync(text, deadline));
+    }
+
+    private void writeStreamItem(StreamItem item, OutputStream out) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("index", item.index());
+        try {
+            SentimentResult result = item.result().join();
+            line.put("text", item.text());
+            line.put("sentiment", result.sentiment());
+            line.put("confidence", result.confidence());
+        } catch (CompletionException e) {
+            line.put("error", e.getCause().getMessage());
+        }
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+    }
+
+    private Deadline deadline(String timeoutHeader) {
+        return Deadline.after(timeout(timeoutHeader, deadlineProperties.defaultTimeout()));
+    }
+
+    /**
+     * Reads a timeout header such as "2s" or "1500" (milliseconds), or returns the default.
+     */
+    private static Duration timeout(String header, Duration defaultTimeout) {
+        if (header == null || header.isBlank()) {
+            return defaultTimeout;
+        }
+        Duration timeout;
+        try {
+            timeout = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+        } catch (IllegalArgumentException e) {
+            timeout = null;
+        }
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    TIMEOUT_HEADER + " must be a positive duration such as 2s or 1500");
+        }
+        return timeout;
+    }
+
+    private void cancel(CompletableFuture<?> analysis) {
+        if (analysis.cancel(true)) {
+            cancelledBatches.increment();
+        }
+    }
+
+    private static Map<String, Object> batchResponse(List<String> texts, List<SentimentResult> answers,
+                                                     List<SentimentResult> analyzed) {
+        List<Map<String, Object>> results = new ArrayList<>(texts.size());
+        int next = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            SentimentResult result = answers.get(i) != null ? answers.get(i) : analyzed.get(next++);
+            Map<String, Object> item = new HashMap<>();
+            item.put("text", texts.get(i));
+            item.put("sentiment", result.sentiment());
+            item.put("confidence", result.confidence());
+            results.add(item);
+        }
         
+        Map<String, Object> response = new HashMap<>();
         response.put("results", results);
         response.put("count", results.size());
-        
-        return ResponseEntity.ok(response);
+        return response;
+    }
+
+    /**
+     * One line of a streaming request.
+     */
+    public record StreamLine(String text) {
+    }
+
+    private record StreamItem(int index, String text, Deadline deadline,
+                              CompletableFuture<SentimentResult> result) {
     }
 
     /**
      * Request body for batch sentiment analysis.
      */
-    public record BatchRequest(java.util.List<String> texts) {
+    public record BatchRequest(List<String> texts) {
     }
 }
@@ -0,0 +1,90 @@
+package com.example.sentimentapi.answers;
+
+import com.example.sentimentapi.service.ModelFingerprint;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnswerTableFileTest {
+
+    private static final String FINGERPRINT = "0123456789abcdef";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void looksUpWrittenResults() throws IOException {
+        Map<String, SentimentResult> results = new LinkedHashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            results.put("review number " + i, result(i % 3, i / 1000.0));
+        }
+        Path file = directory.resolve("table" + AnswerTableFile.EXTENSION);
+
+        assertThat(AnswerTableFile.write(results, FINGERPRINT, file)).isEqualTo(1_000);
+        AnswerTableFile table = AnswerTableFile.read(file);
+
+        assertThat(table.modelFingerprint()).isEqualTo(FINGERPRINT);
+        assertThat(table.size()).isEqualTo(1_000);
+        results.forEach((text, expected) -> {
+            SentimentResult actual = table.lookup(text);
+            assertThat(actual).as(text).isNotNull();
+            assertThat(actual.sentiment()).isEqualTo(expected.sentiment());
+            assertThat(actual.confidence()).isEqualTo(expected.confidence());
+            assertThat(actual.scores()).containsExactly(expected.scores());
+            assertThat(actual.fallback()).isFalse();
+        });
+        assertThat(table.lookup("a review that was never precomputed")).isNull();
+    }
+
+    @Test
+    void rejectsResultsWithoutSentimentLabel() {
+        Map<String, SentimentResult> results = Map.of("text", new SentimentResult("error", 0, new double[5], true));
+
+        assertThatThrownBy(() -> AnswerTableFile.write(results, FINGERPRINT, directory.resolve("table")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = Files.writeString(directory.resolve("table"), "not a table");
+
+        assertThatThrownBy(() -> AnswerTableFile.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Not an answer table");
+    }
+
+    @Test
+    void answerTableIgnoresTableOfAnotherModel() throws IOException {
+        Path file = directory.resolve("table" + AnswerTableFile.EXTENSION);
+        AnswerTableFile.write(Map.of("good movie", result(2, 0.9)), FINGERPRINT, file);
+
+        assertThat(answerTable(file, FINGERPRINT).lookup("good movie")).isNotNull();
+        assertThat(answerTable(file, "fedcba9876543210").lookup("good movie")).isNull();
+    }
+
+    private static AnswerTable answerTable(Path file, String fingerprint) {
+        ModelFingerprint modelFingerprint = mock(ModelFingerprint.class);
+        when(modelFingerprint.value()).thenReturn(fingerprint);
+        AnswerTable table = new AnswerTable(new AnswerTableProperties(file), modelFingerprint,
+                new SimpleMeterRegistry());
+        table.init();
+        return table;
+    }
+
+    private static SentimentResult result(int label, double confidence) {
+        String sentiment = new String[] {"negative", "neutral", "positive"}[label];
+        return new SentimentResult(sentiment, confidence, new double[] {0.1, 0.2, 0.3, 0.2, confidence}, false);
+    }
+}
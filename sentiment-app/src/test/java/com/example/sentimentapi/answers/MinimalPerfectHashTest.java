@@ -0,0 +1,64 @@
+package com.example.sentimentapi.answers;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinimalPerfectHashTest {
+
+    @Test
+    void mapsKeysOntoDistinctIndexes() {
+        long[] keys = randomKeys(10_000);
+
+        MinimalPerfectHash hash = MinimalPerfectHash.build(keys);
+
+        assertBijection(hash, keys);
+    }
+
+    @Test
+    void readsBackWhatItWrote() {
+        long[] keys = randomKeys(5_000);
+        MinimalPerfectHash hash = MinimalPerfectHash.build(keys);
+        ByteBuffer buffer = ByteBuffer.allocate(hash.sizeInBytes());
+
+        hash.write(buffer);
+        assertThat(buffer.hasRemaining()).isFalse();
+        MinimalPerfectHash read = MinimalPerfectHash.read(buffer.flip());
+
+        for (long key : keys) {
+            assertThat(read.index(key)).isEqualTo(hash.index(key));
+        }
+    }
+
+    @Test
+    void handlesNoKeys() {
+        MinimalPerfectHash hash = MinimalPerfectHash.build(new long[0]);
+
+        assertThat(hash.index(42)).isNegative();
+    }
+
+    @Test
+    void rejectsDuplicateKeys() {
+        assertThatThrownBy(() -> MinimalPerfectHash.build(new long[] {1, 2, 3, 2}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertBijection(MinimalPerfectHash hash, long[] keys) {
+        BitSet used = new BitSet(keys.length);
+        for (long key : keys) {
+            int index = hash.index(key);
+            assertThat(index).isBetween(0, keys.length - 1);
+            assertThat(used.get(index)).as("index %d assigned twice", index).isFalse();
+            used.set(index);
+        }
+    }
+
+    private static long[] randomKeys(int count) {
+        return new SplittableRandom(7).longs().distinct().limit(count).toArray();
+    }
+}
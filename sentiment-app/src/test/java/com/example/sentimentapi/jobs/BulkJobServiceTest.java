@@ -0,0 +1,189 @@
+package com.example.sentimentapi.jobs;
+
+import com.example.sentimentapi.jobs.BulkJobService.Manifest;
+import com.example.sentimentapi.jobs.JobStatus.State;
+import com.example.sentimentapi.service.PipelineUnavailableException;
+import com.example.sentimentapi.service.SentimentService;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BulkJobServiceTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final SentimentService sentimentService = mock(SentimentService.class);
+    private final List<BulkJobService> services = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(BulkJobService::shutdown);
+    }
+
+    @Test
+    void analyzesChunksAndKeepsInputOrder() throws IOException {
+        answerByText();
+        BulkJobService service = service(2);
+        String input = """
+                {"text": "good one"}
+                {"text": "bad one"}
+
+                not json
+                {"text": "good two"}
+                {"text": "bad two"}""";
+
+        JobStatus submitted = service.submit(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(submitted.lines()).isEqualTo(6);
+        assertThat(submitted.chunks()).isEqualTo(3);
+        awaitState(service, submitted.id(), State.COMPLETED);
+        List<JsonNode> results = results(service, submitted.id());
+        assertThat(results).extracting(line -> line.get("index").asInt()).containsExactly(0, 1, 3, 4, 5);
+        assertThat(results).extracting(line -> line.path("text").asText(null))
+                .containsExactly("good one", "bad one", null, "good two", "bad two");
+        assertThat(results).extracting(line -> line.path("sentiment").asText(null))
+                .containsExactly("positive", "negative", null, "positive", "negative");
+        assertThat(results.get(2).get("error").asText()).isEqualTo("Line 4 is not a JSON object with a text");
+    }
+
+    @Test
+    void resumesOnlyUnfinishedChunks() throws IOException {
+        answerByText();
+        Path dir = directory.resolve("job-1");
+        Files.createDirectories(dir.resolve("chunks"));
+        String input = "{\"text\": \"good one\"}\n{\"text\": \"bad one\"}\n{\"text\": \"good two\"}\n";
+        Files.writeString(dir.resolve("input.jsonl"), input);
+        // Chunk 0 finished before the restart, chunk 1 was being written
+        Files.writeString(dir.resolve("chunks/0.jsonl"),
+                "{\"index\":0,\"text\":\"good one\",\"sentiment\":\"neutral\",\"confidence\":0.5}\n"
+                        + "{\"index\":1,\"text\":\"bad one\",\"sentiment\":\"neutral\",\"confidence\":0.5}\n");
+        Files.writeString(dir.resolve("chunks/1.jsonl.tmp"), "{\"index\":2,");
+        long secondChunk = input.indexOf("{\"text\": \"good two\"}");
+        objectMapper.writeValue(dir.resolve("job.json").toFile(), new Manifest("job-1", State.RUNNING, 3,
+                input.length(), 2, new long[] {0, secondChunk}, Instant.now(), null));
+        Path unfinishedUpload = Files.createDirectories(directory.resolve("job-2"));
+
+        BulkJobService service = service(2);
+        service.resume();
+
+        awaitState(service, "job-1", State.COMPLETED);
+        assertThat(results(service, "job-1")).extracting(line -> line.get("sentiment").asText())
+                .containsExactly("neutral", "neutral", "positive");
+        verify(sentimentService).analyzeBatchAsync(List.of("good two"));
+        assertThat(unfinishedUpload).doesNotExist();
+    }
+
+    @Test
+    void corruptJobDoesNotStopOthersFromResuming() throws IOException {
+        answerByText();
+        BulkJobService first = service(2);
+        JobStatus submitted = first.submit(new ByteArrayInputStream("{\"text\": \"good\"}\n".getBytes(StandardCharsets.UTF_8)));
+        awaitState(first, submitted.id(), State.COMPLETED);
+        Path corrupt = Files.createDirectories(directory.resolve("corrupt"));
+        Files.writeString(corrupt.resolve("job.json"), "{not json");
+
+        BulkJobService restarted = service(2);
+        restarted.resume();
+
+        assertThat(restarted.status(submitted.id()).state()).isEqualTo(State.COMPLETED);
+        assertThat(restarted.results(submitted.id())).exists();
+        assertThat(corrupt).exists();
+    }
+
+    @Test
+    void failsChunkOnceRetriesAreUsedUp() throws IOException {
+        when(sentimentService.analyzeBatchAsync(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new PipelineUnavailableException("busy")));
+        BulkJobService service = new BulkJobService(new JobProperties(true, directory, 10, 1, 1, DataSize.ofGigabytes(1)),
+                sentimentService, objectMapper, new SimpleMeterRegistry());
+        services.add(service);
+
+        JobStatus submitted = service.submit(new ByteArrayInputStream("{\"text\": \"good\"}\n".getBytes(StandardCharsets.UTF_8)));
+
+        awaitState(service, submitted.id(), State.FAILED);
+        verify(sentimentService, times(2)).analyzeBatchAsync(List.of("good"));
+    }
+
+    @Test
+    void rejectsInputsOverTheLimit() throws IOException {
+        BulkJobService service = service(2, DataSize.ofBytes(100));
+        byte[] input = "{\"text\": \"good\"}\n".repeat(10).getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> service.submit(new ByteArrayInputStream(input)))
+                .isInstanceOf(JobInputTooLargeException.class);
+
+        try (Stream<Path> dirs = Files.list(directory)) {
+            assertThat(dirs).isEmpty();
+        }
+        verifyNoInteractions(sentimentService);
+    }
+
+    private BulkJobService service(int chunkSize) {
+        return service(chunkSize, DataSize.ofGigabytes(1));
+    }
+
+    private BulkJobService service(int chunkSize, DataSize maxInputSize) {
+        BulkJobService service = new BulkJobService(new JobProperties(true, directory, chunkSize, 2, 0, maxInputSize),
+                sentimentService, objectMapper, new SimpleMeterRegistry());
+        services.add(service);
+        return service;
+    }
+
+    /**
+     * Texts containing "good" are positive, all others negative.
+     */
+    private void answerByText() {
+        when(sentimentService.analyzeBatchAsync(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(texts.stream()
+                    .map(text -> new SentimentResult(text.contains("good") ? "positive" : "negative", 0.9,
+                            new double[5], false))
+                    .toList());
+        });
+    }
+
+    private List<JsonNode> results(BulkJobService service, String id) throws IOException {
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : Files.readAllLines(service.results(id))) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static void awaitState(BulkJobService service, String id, State state) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (service.status(id).state() != state) {
+            assertThat(System.nanoTime() - deadline).as("timed out waiting for %s", state).isNegative();
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.sentimentapi.rntn;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.neural.rnn.RNNCoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.sentiment.SentimentModel;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the flat evaluators reproduce CoreNLP's sentiment annotator bit for bit.
+ */
+class RntnEvaluatorTest {
+
+    private static final String MODEL = "edu/stanford/nlp/models/sentiment/sentiment.ser.gz";
+    private static final String SAMPLE = "The movie was not bad at all. "
+            + "I hated every minute of the second half, and the ending made no sense. "
+            + "Great acting! "
+            + "It is neither a triumph nor a disaster, just a very ordinary film. "
+            + "The movie was not bad at all. "
+            + "Not bad.";
+
+    private static RntnWeights weights;
+    private static List<Tree> trees;
+    private static List<double[]> expected;
+
+    @BeforeAll
+    static void annotateSample() {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize, ssplit, parse, sentiment");
+        props.setProperty("parse.binaryTrees", "true");
+        props.setProperty("sentiment.model", MODEL);
+        Annotation annotation = new Annotation(SAMPLE);
+        new StanfordCoreNLP(props).annotate(annotation);
+
+        trees = new ArrayList<>();
+        expected = new ArrayList<>();
+        for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
+            trees.add(sentence.get(TreeCoreAnnotations.BinarizedTreeAnnotation.class));
+            SimpleMatrix predictions = RNNCoreAnnotations.getPredictions(
+                    sentence.get(SentimentCoreAnnotations.SentimentAnnotatedTree.class));
+            double[] probabilities = new double[predictions.getNumElements()];
+            for (int i = 0; i < probabilities.length; i++) {
+                probabilities[i] = predictions.get(i);
+            }
+            expected.add(probabilities);
+        }
+        weights = RntnWeights.from(SentimentModel.loadSerialized(MODEL));
+    }
+
+    @Test
+    void evaluatorMatchesCoreNlp() {
+        RntnEvaluator evaluator = new RntnEvaluator(weights, new ScalarKernels());
+
+        assertMatchesCoreNlp(evaluator);
+    }
+
+    @Test
+    void batchEvaluatorMatchesCoreNlp() {
+        RntnBatchEvaluator evaluator = new RntnBatchEvaluator(weights, new ScalarKernels());
+
+        assertMatchesCoreNlp(evaluator);
+    }
+
+    @Test
+    void memoizedEvaluatorsMatchCoreNlp() {
+        PhraseMemo memo = new PhraseMemo(4, 1_000);
+
+        // Twice, so the second pass reads phrases memoized by the first
+        for (int pass = 0; pass < 2; pass++) {
+            assertMatchesCoreNlp(new RntnEvaluator(weights, new ScalarKernels(), memo));
+            assertMatchesCoreNlp(new RntnBatchEvaluator(weights, new ScalarKernels(), memo));
+        }
+        assertThat(memo.cache().stats().hitCount()).isPositive();
+    }
+
+    private static void assertMatchesCoreNlp(RntnEvaluator evaluator) {
+        for (int i = 0; i < trees.size(); i++) {
+            double[] probabilities = new double[weights.numClasses()];
+            evaluator.evaluate(trees.get(i), probabilities);
+            assertThat(probabilities).as("sentence %d", i).isEqualTo(expected.get(i));
+        }
+    }
+
+    private static void assertMatchesCoreNlp(RntnBatchEvaluator evaluator) {
+        double[][] probabilities = new double[trees.size()][weights.numClasses()];
+        evaluator.evaluate(trees, probabilities);
+        for (int i = 0; i < trees.size(); i++) {
+            assertThat(probabilities[i]).as("sentence %d", i).isEqualTo(expected.get(i));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.sentimentapi.rntn;
+
+import edu.stanford.nlp.sentiment.SentimentModel;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RntnModelFileTest {
+
+    private static RntnWeights weights;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void loadModel() {
+        weights = RntnWeights.from(SentimentModel.loadSerialized("edu/stanford/nlp/models/sentiment/sentiment.ser.gz"));
+    }
+
+    @Test
+    void float64RoundTripIsExact() throws IOException {
+        Path file = directory.resolve("sentiment" + RntnModelFile.EXTENSION);
+
+        RntnModelFile.write(weights, RntnPrecision.FLOAT64, file);
+        RntnWeights read = RntnModelFile.read(file);
+
+        assertThat(read.precision()).isEqualTo(RntnPrecision.FLOAT64);
+        assertThat(read.numHid).isEqualTo(weights.numHid);
+        assertThat(read.numClasses).isEqualTo(weights.numClasses);
+        assertThat(read.useTensors).isEqualTo(weights.useTensors);
+        assertThat(read.lowercaseWords).isEqualTo(weights.lowercaseWords);
+        assertThat(read.vocabulary).isEqualTo(weights.vocabulary);
+        assertThat(read.unknownIndex).isEqualTo(weights.unknownIndex);
+        assertThat(read.transform).isEqualTo(weights.transform);
+        assertThat(read.tensor).isEqualTo(weights.tensor);
+        assertThat(read.classification).isEqualTo(weights.classification);
+        assertThat(leaves(read)).isEqualTo(leaves(weights));
+    }
+
+    @Test
+    void float32RoundTripIsClose() throws IOException {
+        Path file = directory.resolve("sentiment" + RntnModelFile.EXTENSION);
+
+        RntnModelFile.write(weights, RntnPrecision.FLOAT32, file);
+        RntnWeights read = RntnModelFile.read(file);
+
+        assertThat(read.precision()).isEqualTo(RntnPrecision.FLOAT32);
+        assertThat(read.vocabulary).isEqualTo(weights.vocabulary);
+        assertThat(maxDifference(read.transform, weights.transform)).isLessThan(1e-6);
+        assertThat(maxDifference(leaves(read), leaves(weights))).isLessThan(1e-6);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = Files.writeString(directory.resolve("sentiment" + RntnModelFile.EXTENSION), "not a model");
+
+        assertThatThrownBy(() -> RntnModelFile.read(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Not an RNTN model file");
+    }
+
+    private static double maxDifference(double[] a, double[] b) {
+        assertThat(a).hasSameSizeAs(b);
+        double max = 0;
+        for (int i = 0; i < a.length; i++) {
+            max = Math.max(max, Math.abs(a[i] - b[i]));
+        }
+        return max;
+    }
+
+    private static double[] leaves(RntnWeights weights) {
+        double[] leaves = new double[weights.vocabularySize() * weights.numHid];
+        for (int row = 0; row < weights.vocabularySize(); row++) {
+            weights.leaves.copy(row, leaves, row * weights.numHid);
+        }
+        return leaves;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.sentimentapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final InferenceExecutor inferenceExecutor = mock(InferenceExecutor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shedsRequestsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 2);
+
+        assertThatThrownBy(() -> limiter.call(() -> limiter.call(() -> limiter.call(() -> "too many"))))
+                .isInstanceOf(OverloadedException.class)
+                .satisfies(e -> assertThat(((OverloadedException) e).retryAfter()).isEqualTo(Duration.ofSeconds(1)));
+
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(meterRegistry.get("sentiment.limiter.shed").counter().count()).isEqualTo(1);
+        assertThat(limiter.call(() -> limiter.call(() -> "within limit"))).isEqualTo("within limit");
+    }
+
+    @Test
+    void disabledLimiterAdmitsEverything() {
+        AdaptiveConcurrencyLimiter limiter = limiter(false, 1);
+
+        assertThat(limiter.call(() -> limiter.call(() -> limiter.call(() -> "all")))).isEqualTo("all");
+        assertThat(meterRegistry.get("sentiment.limiter.shed").counter().count()).isZero();
+    }
+
+    @Test
+    void lowersLimitWhenRequestsQueueForInference() {
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 20);
+        // Every request spent all of its time waiting for an inference thread
+        when(inferenceExecutor.lastWaitNanos()).thenReturn(Long.MAX_VALUE);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.call(() -> {
+                LockSupport.parkNanos(100_000);
+                return null;
+            });
+        }
+
+        assertThat(limiter.currentLimit()).isLessThan(20).isGreaterThanOrEqualTo(1);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(boolean enabled, int initialLimit) {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties(enabled, initialLimit, 1, 200,
+                Duration.ofSeconds(1));
+        return new AdaptiveConcurrencyLimiter(properties, inferenceExecutor, meterRegistry);
+    }
+}
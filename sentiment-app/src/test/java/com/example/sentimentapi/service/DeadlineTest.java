@@ -0,0 +1,75 @@
+package com.example.sentimentapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineTest {
+
+    @Test
+    void expiresAfterTimeout() {
+        Deadline pending = Deadline.after(Duration.ofMinutes(1));
+        assertThat(pending.isBounded()).isTrue();
+        assertThat(pending.expired()).isFalse();
+        assertThat(pending.remainingNanos()).isPositive().isLessThanOrEqualTo(Duration.ofMinutes(1).toNanos());
+        assertThatCode(pending::check).doesNotThrowAnyException();
+
+        Deadline deadline = Deadline.after(Duration.ofMillis(20));
+        LockSupport.parkNanos(Duration.ofMillis(40).toNanos());
+
+        assertThat(deadline.expired()).isTrue();
+        assertThat(deadline.remainingNanos()).isZero();
+        assertThatThrownBy(deadline::check)
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessage("Request deadline passed");
+    }
+
+    @Test
+    void cancellingEndsItAtOnce() {
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+
+        deadline.cancel();
+
+        assertThat(deadline.expired()).isTrue();
+        assertThat(deadline.remainingNanos()).isZero();
+        assertThatThrownBy(deadline::check)
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessage("Request cancelled");
+    }
+
+    @Test
+    void zeroTimeoutOnlyEndsByCancelling() {
+        Deadline deadline = Deadline.after(Duration.ZERO);
+        assertThat(deadline).isNotSameAs(Deadline.NONE);
+        assertThat(deadline.isBounded()).isTrue();
+        assertThat(deadline.expired()).isFalse();
+        assertThat(deadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+
+        deadline.cancel();
+
+        assertThat(deadline.expired()).isTrue();
+        assertThat(Deadline.after(Duration.ZERO).expired()).isFalse();
+    }
+
+    @Test
+    void noneNeverEnds() {
+        assertThat(Deadline.NONE.isBounded()).isFalse();
+        assertThat(Deadline.NONE.expired()).isFalse();
+        assertThat(Deadline.NONE.boundNanos(Duration.ofSeconds(1))).isEqualTo(Duration.ofSeconds(1).toNanos());
+        assertThatThrownBy(Deadline.NONE::cancel).isInstanceOf(UnsupportedOperationException.class);
+        assertThatCode(Deadline.NONE::check).doesNotThrowAnyException();
+    }
+
+    @Test
+    void boundsWaitsByRemainingTime() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(100));
+
+        assertThat(deadline.boundNanos(Duration.ofMillis(10))).isEqualTo(Duration.ofMillis(10).toNanos());
+        assertThat(deadline.boundNanos(Duration.ofMinutes(1))).isLessThanOrEqualTo(Duration.ofMillis(100).toNanos());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.service.InferenceExecutor.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InferenceExecutorTest {
+
+    private final InferenceExecutor executor = new InferenceExecutor(
+            new PipelinePoolProperties(1, Duration.ofSeconds(5)),
+            new InferenceProperties(true, new InferenceProperties.LaneProperties(1.0, 100),
+                    new InferenceProperties.LaneProperties(1.0, 100), 0, 4),
+            new SimpleMeterRegistry());
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void interactiveTaskOvertakesQueuedBulkTasks() throws InterruptedException {
+        occupyThread();
+        List<String> started = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        executor.submit(record("bulk 1", started, done), Lane.BULK, 0);
+        executor.submit(record("bulk 2", started, done), Lane.BULK, 0);
+        executor.submit(record("interactive", started, done), Lane.INTERACTIVE, 0);
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(started).containsExactly("interactive", "bulk 1", "bulk 2");
+    }
+
+    @Test
+    void bulkTasksStartShortestJobFirst() throws InterruptedException {
+        occupyThread();
+        List<String> started = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        executor.submit(record("long", started, done), Lane.BULK, TimeUnit.SECONDS.toNanos(30));
+        executor.submit(record("short", started, done), Lane.BULK, TimeUnit.SECONDS.toNanos(10));
+        executor.submit(record("medium", started, done), Lane.BULK, TimeUnit.SECONDS.toNanos(20));
+
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(started).containsExactly("short", "medium", "long");
+    }
+
+    @Test
+    void expiredTaskIsWithdrawnBeforeItRuns() throws InterruptedException {
+        occupyThread();
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThatThrownBy(() -> executor.call(() -> ran.getAndSet(true), Deadline.after(Duration.ofMillis(50)),
+                Lane.INTERACTIVE, 0))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        CountDownLatch next = new CountDownLatch(1);
+        executor.submit(next::countDown, Lane.INTERACTIVE, 0);
+        release.countDown();
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void bulkWorkYieldsToWaitingInteractiveTask() {
+        occupyThread();
+        assertThat(executor.shouldYield(Lane.BULK, 0)).isFalse();
+        assertThat(executor.tryStart(() -> { }, Lane.INTERACTIVE)).isFalse();
+
+        executor.submit(() -> { }, Lane.INTERACTIVE, 0);
+
+        assertThat(executor.shouldYield(Lane.BULK, 0)).isTrue();
+        assertThat(executor.shouldYield(Lane.INTERACTIVE, 0)).isFalse();
+    }
+
+    @Test
+    void bulkWorkYieldsToBulkTaskDueEarlier() {
+        occupyThread();
+        executor.submit(() -> { }, Lane.BULK, TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(executor.shouldYield(Lane.BULK, TimeUnit.SECONDS.toNanos(60))).isTrue();
+        assertThat(executor.shouldYield(Lane.BULK, 0)).isFalse();
+    }
+
+    @Test
+    void blockedTaskLetsAnotherStart() throws InterruptedException {
+        CountDownLatch blocking = new CountDownLatch(1);
+        executor.submit(() -> executor.block(() -> {
+            blocking.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }), Lane.BULK, 0);
+        assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CountDownLatch next = new CountDownLatch(1);
+        executor.submit(next::countDown, Lane.INTERACTIVE, 0);
+
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(release.getCount()).isOne();
+    }
+
+    /**
+     * Keeps the only inference thread busy until {@link #release} is counted down.
+     */
+    private void occupyThread() {
+        CountDownLatch running = new CountDownLatch(1);
+        executor.submit(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, Lane.BULK, 0);
+        try {
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Runnable record(String name, List<String> started, CountDownLatch done) {
+        return () -> {
+            started.add(name);
+            done.countDown();
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PersistentResultCacheTest {
+
+    private static final String FINGERPRINT = "0123456789abcdef";
+
+    @TempDir
+    Path directory;
+
+    private final List<PersistentResultCache> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() throws IOException {
+        for (PersistentResultCache cache : opened) {
+            cache.close();
+        }
+    }
+
+    @Test
+    void resultsSurviveReopening() throws IOException {
+        PersistentResultCache cache = open();
+        cache.put("good movie", result("positive"));
+        cache.put("bad movie", result("negative"));
+        cache.close();
+
+        PersistentResultCache reopened = open();
+        awaitLoaded(reopened, "bad movie");
+        assertResult(reopened.get("good movie"), "positive");
+        assertResult(reopened.get("bad movie"), "negative");
+        assertThat(reopened.get("another movie")).isNull();
+    }
+
+    @Test
+    void tornTailIsCutOff() throws IOException {
+        PersistentResultCache cache = open();
+        cache.put("good movie", result("positive"));
+        cache.close();
+        Path log = log();
+        long valid = Files.size(log);
+        // A record header claiming more bytes than were written before a crash
+        append(log, ByteBuffer.allocate(12).putInt(100).putLong(42).array());
+
+        PersistentResultCache reopened = open();
+        awaitLoaded(reopened, "good movie");
+        awaitTrue(() -> size(log) == valid);
+        reopened.put("bad movie", result("negative"));
+        reopened.close();
+
+        PersistentResultCache again = open();
+        awaitLoaded(again, "bad movie");
+        assertResult(again.get("good movie"), "positive");
+    }
+
+    @Test
+    void loadStopsAtCorruptRecord() throws IOException {
+        PersistentResultCache cache = open();
+        cache.put("good movie", result("positive"));
+        cache.close();
+        Path log = log();
+        long first = Files.size(log);
+        cache = open();
+        awaitLoaded(cache, "good movie");
+        cache.put("bad movie", result("negative"));
+        cache.close();
+        flipByte(log, first + 20);
+
+        PersistentResultCache reopened = open();
+        awaitLoaded(reopened, "good movie");
+        awaitTrue(() -> size(log) == first);
+        assertThat(reopened.get("bad movie")).isNull();
+    }
+
+    @Test
+    void loadsLogsLargerThanOneWindow() throws IOException {
+        PersistentResultCache cache = open();
+        String padding = "x".repeat(900_000);
+        int count = 80;
+        for (int i = 0; i < count; i++) {
+            cache.put(i + padding, result(i % 2 == 0 ? "positive" : "negative"));
+        }
+        cache.close();
+        assertThat(Files.size(log())).isGreaterThan(64L << 20);
+
+        PersistentResultCache reopened = open();
+        awaitLoaded(reopened, (count - 1) + padding);
+        for (int i = 0; i < count; i++) {
+            assertResult(reopened.get(i + padding), i % 2 == 0 ? "positive" : "negative");
+        }
+    }
+
+    @Test
+    void secondCacheOnLockedDirectoryIsDisabled() throws IOException {
+        PersistentResultCache owner = open();
+        owner.put("good movie", result("positive"));
+
+        PersistentResultCache other = open();
+        other.put("bad movie", result("negative"));
+        assertThat(other.get("good movie")).isNull();
+        assertThat(owner.get("bad movie")).isNull();
+        assertResult(owner.get("good movie"), "positive");
+        assertThat(log()).exists();
+    }
+
+    @Test
+    void logsOfOtherModelsAreDeleted() throws IOException {
+        Path stale = directory.resolve("results-fedcba9876543210.log");
+        Files.write(stale, new byte[] {1, 2, 3});
+
+        open();
+
+        assertThat(stale).doesNotExist();
+        assertThat(log()).exists();
+    }
+
+    private PersistentResultCache open() {
+        ModelFingerprint fingerprint = mock(ModelFingerprint.class);
+        when(fingerprint.value()).thenReturn(FINGERPRINT);
+        PersistentCacheProperties properties = new PersistentCacheProperties(true, directory, DataSize.ofGigabytes(1));
+        PersistentResultCache cache = new PersistentResultCache(properties, fingerprint, new SimpleMeterRegistry());
+        cache.open();
+        opened.add(cache);
+        return cache;
+    }
+
+    private Path log() {
+        return directory.resolve("results-" + FINGERPRINT + ".log");
+    }
+
+    private static SentimentResult result(String sentiment) {
+        return new SentimentResult(sentiment, 0.75, new double[] {0.05, 0.05, 0.1, 0.05, 0.75}, false);
+    }
+
+    private static void assertResult(SentimentResult result, String sentiment) {
+        assertThat(result).isNotNull();
+        assertThat(result.sentiment()).isEqualTo(sentiment);
+        assertThat(result.confidence()).isEqualTo(0.75);
+        assertThat(result.scores()).containsExactly(0.05, 0.05, 0.1, 0.05, 0.75);
+        assertThat(result.fallback()).isFalse();
+    }
+
+    /**
+     * Existing entries are loaded on a background thread; waits until the given one is.
+     */
+    private static void awaitLoaded(PersistentResultCache cache, String key) {
+        awaitTrue(() -> cache.get(key) != null);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void append(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes, StandardOpenOption.APPEND);
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) ~one.get(0)).rewind();
+            channel.write(one, position);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.sentimentapi.service;
+
+import com.example.sentimentapi.service.InferenceExecutor.Lane;
+import com.example.sentimentapi.service.SentimentService.SentimentResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void releaseLeader() {
+        release.countDown();
+    }
+
+    @Test
+    void bulkCallerJoinsInteractiveComputation() throws Exception {
+        CompletableFuture<SentimentResult> leader = lead(Lane.INTERACTIVE, "positive");
+
+        CompletableFuture<SentimentResult> joined = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("good movie", Lane.BULK, Deadline.NONE, () -> result("negative")));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS).sentiment()).isEqualTo("positive");
+        assertThat(joined.get(5, TimeUnit.SECONDS).sentiment()).isEqualTo("positive");
+    }
+
+    @Test
+    void interactiveCallerDoesNotWaitBehindBulkComputation() throws Exception {
+        CompletableFuture<SentimentResult> leader = lead(Lane.BULK, "positive");
+
+        SentimentResult own = coalescer.execute("good movie", Lane.INTERACTIVE, Deadline.NONE,
+                () -> result("negative"));
+
+        assertThat(own.sentiment()).isEqualTo("negative");
+        assertThat(meterRegistry.get("sentiment.coalesced").counter().count()).isZero();
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS).sentiment()).isEqualTo("positive");
+    }
+
+    /**
+     * Starts a computation for "good movie" that runs until {@link #release} is counted down.
+     */
+    private CompletableFuture<SentimentResult> lead(Lane lane, String sentiment) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<SentimentResult> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("good movie", lane, Deadline.NONE, () -> {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return result(sentiment);
+                }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        return leader;
+    }
+
+    private void awaitCoalesced(int count) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (meterRegistry.get("sentiment.coalesced").counter().count() < count) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static SentimentResult result(String sentiment) {
+        return new SentimentResult(sentiment, 0.9, new double[5], false);
+    }
+}